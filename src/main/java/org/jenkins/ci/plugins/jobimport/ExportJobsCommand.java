@@ -0,0 +1,34 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Exports the items a JSON manifest read from stdin selects, see {@link ImportManifest}, as a bundle written to stdout
+ * that {@code import-jobs} can import on a Jenkins which cannot reach the remote one. Exits with 1 when something could
+ * not be exported.
+ */
+@Extension
+public class ExportJobsCommand extends CLICommand {
+
+  @Override
+  public String getShortDescription() {
+    return Messages.ExportJobsCommand_ShortDescription();
+  }
+
+  @Override
+  protected int run() throws Exception {
+    Jenkins.get().checkPermission(JobImportAction.JOB_IMPORT);
+
+    final ImportManifest manifest = ImportManifest.parse(IOUtils.toString(stdin, getClientCharset()));
+    final Writer err = new OutputStreamWriter(stderr, getClientCharset());
+    final int failed = manifest.export(stdout, err);
+    stdout.flush();
+    return failed == 0 ? 0 : 1;
+  }
+}
@@ -0,0 +1,34 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.IOUtils;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Runs an import described by a JSON manifest read from stdin, see {@link ImportManifest}, and prints the result of
+ * every item as a JSON line while the import runs. Exits with 1 when something could not be imported.
+ */
+@Extension
+public class ImportJobsCommand extends CLICommand {
+
+  @Override
+  public String getShortDescription() {
+    return Messages.ImportJobsCommand_ShortDescription();
+  }
+
+  @Override
+  protected int run() throws Exception {
+    Jenkins.get().checkPermission(JobImportAction.JOB_IMPORT);
+
+    final ImportManifest manifest = ImportManifest.parse(IOUtils.toString(stdin, getClientCharset()));
+    final Writer out = new OutputStreamWriter(stdout, getClientCharset());
+    final int failed = manifest.execute(ExtensionList.lookupSingleton(JobImportAction.class), out);
+    out.flush();
+    return failed == 0 ? 0 : 1;
+  }
+}
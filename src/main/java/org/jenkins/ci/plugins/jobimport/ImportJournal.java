@@ -0,0 +1,285 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import hudson.BulkChange;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * What an import was asked to do and how far it got, kept on disk while it runs so that an import interrupted by a
+ * restart can be resumed: the items it already imported are not imported again.
+ * <p>
+ * To keep large imports cheap the journal is written at most every {@link #SAVE_INTERVAL_MILLIS}, when Jenkins stops
+ * and when the import ends. It is deleted once the import went through all of its items.
+ */
+public final class ImportJournal implements Saveable {
+
+  private static final Logger LOG = Logger.getLogger(ImportJournal.class.getName());
+
+  static final String DIRECTORY = "job-import/journal";
+  static final long SAVE_INTERVAL_MILLIS = SystemProperties.getLong(ImportJournal.class.getName() + ".saveIntervalMillis",
+          2000L);
+
+  private static final Pattern ID = Pattern.compile("[0-9a-f-]+");
+
+  // the journals of the imports running in this Jenkins, saved when it stops
+  private static final Set<ImportJournal> OPEN = ConcurrentHashMap.newKeySet();
+
+  private final String id;
+  private final String user;
+  private final String siteUrl;
+  private final String remoteUrl;
+  private final boolean recursiveSearch;
+  private final String include;
+  private final String exclude;
+  private final boolean regex;
+  private final String includeClasses;
+  private final String excludeClasses;
+  private final String localFolder;
+  private final List<String> jobUrls;
+  private final boolean installPlugins;
+  private final boolean update;
+  private final boolean sync;
+  private final boolean atomic;
+  private final long startedAt;
+  // remote URL -> state of the item, in the order of the plan
+  private final Map<String, RemoteItemImportStatus> items = new LinkedHashMap<>();
+
+  private transient long savedAt;
+  private transient boolean dirty;
+
+  ImportJournal(String id, String user, String siteUrl, String remoteUrl, boolean recursiveSearch,
+                RemoteItemFilter filter, String localFolder, List<String> jobUrls, boolean installPlugins,
+                boolean update, boolean sync, boolean atomic) {
+    this.id = id;
+    this.user = user;
+    this.siteUrl = siteUrl;
+    this.remoteUrl = remoteUrl;
+    this.recursiveSearch = recursiveSearch;
+    this.include = filter.getInclude();
+    this.exclude = filter.getExclude();
+    this.regex = filter.isRegex();
+    this.includeClasses = filter.getIncludeClasses();
+    this.excludeClasses = filter.getExcludeClasses();
+    this.localFolder = localFolder;
+    this.jobUrls = new ArrayList<>(jobUrls);
+    this.installPlugins = installPlugins;
+    this.update = update;
+    this.sync = sync;
+    this.atomic = atomic;
+    this.startedAt = System.currentTimeMillis();
+  }
+
+  /**
+   * @return The journal of the import with this id, or {@code null} if there is none.
+   */
+  static ImportJournal load(String id) {
+    if (id == null || !ID.matcher(id).matches()) {
+      return null;
+    }
+    final XmlFile file = getFile(id);
+    if (!file.exists()) {
+      return null;
+    }
+    try {
+      return (ImportJournal) file.read();
+    } catch (IOException | ClassCastException e) {
+      LOG.log(Level.WARNING, "Failed to load the import journal " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * @return The journals left behind by imports that did not finish, the most recent first.
+   */
+  static List<ImportJournal> all() {
+    final List<ImportJournal> journals = new ArrayList<>();
+    final File[] files = getDirectory().listFiles((dir, name) -> name.endsWith(".xml"));
+    if (files != null) {
+      for (File file : files) {
+        final ImportJournal journal = load(StringUtils.removeEnd(file.getName(), ".xml"));
+        if (journal != null) {
+          journals.add(journal);
+        }
+      }
+    }
+    journals.sort(Comparator.comparingLong(ImportJournal::getStartedAt).reversed());
+    return journals;
+  }
+
+  private static File getDirectory() {
+    return new File(Jenkins.get().getRootDir(), DIRECTORY);
+  }
+
+  private static XmlFile getFile(String id) {
+    return new XmlFile(Jenkins.XSTREAM2, new File(getDirectory(), id + ".xml"));
+  }
+
+  @Terminator
+  public static void saveOpen() {
+    for (ImportJournal journal : OPEN) {
+      journal.flush();
+    }
+  }
+
+  private synchronized void flush() {
+    if (dirty) {
+      saveQuietly();
+    }
+  }
+
+  /**
+   * Starts recording the items of the import, replacing what an earlier run recorded.
+   */
+  synchronized void open(Collection<RemoteItemImportStatus> planned) {
+    items.clear();
+    for (RemoteItemImportStatus status : planned) {
+      items.put(status.getRemoteUrl(), status);
+    }
+    OPEN.add(this);
+    saveQuietly();
+  }
+
+  /**
+   * Records that an item was imported, or failed, and writes the journal when it was not written for a while.
+   */
+  synchronized void record(RemoteItemImportStatus status) {
+    items.put(status.getRemoteUrl(), status);
+    dirty = true;
+    if (System.currentTimeMillis() - savedAt >= SAVE_INTERVAL_MILLIS) {
+      saveQuietly();
+    }
+  }
+
+  /**
+   * Ends the recording: the journal is deleted if the import is complete, and kept for a resume otherwise.
+   */
+  synchronized void close(boolean complete) {
+    OPEN.remove(this);
+    if (complete) {
+      try {
+        getFile(id).delete();
+      } catch (IOException | RuntimeException e) {
+        LOG.log(Level.WARNING, "Failed to delete the import journal " + id, e);
+      }
+    } else {
+      saveQuietly();
+    }
+  }
+
+  /**
+   * @return What an earlier run recorded for the item, or {@code null}.
+   */
+  synchronized RemoteItemImportStatus get(String remoteUrl) {
+    return items.get(remoteUrl);
+  }
+
+  @Override
+  public synchronized void save() throws IOException {
+    if (BulkChange.contains(this)) {
+      return;
+    }
+    final XmlFile file = getFile(id);
+    file.mkdirs();
+    file.write(this);
+    savedAt = System.currentTimeMillis();
+    dirty = false;
+    SaveableListener.fireOnChange(this, file);
+  }
+
+  private void saveQuietly() {
+    try {
+      save();
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to save the import journal " + id, e);
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  public String getSiteUrl() {
+    return siteUrl;
+  }
+
+  public String getRemoteUrl() {
+    return remoteUrl;
+  }
+
+  public boolean isRecursiveSearch() {
+    return recursiveSearch;
+  }
+
+  public RemoteItemFilter getFilter() {
+    return new RemoteItemFilter(include, exclude, regex, includeClasses, excludeClasses);
+  }
+
+  public String getLocalFolder() {
+    return localFolder;
+  }
+
+  public List<String> getJobUrls() {
+    return jobUrls;
+  }
+
+  public boolean isInstallPlugins() {
+    return installPlugins;
+  }
+
+  public boolean isUpdate() {
+    return update;
+  }
+
+  public boolean isSync() {
+    return sync;
+  }
+
+  public boolean isAtomic() {
+    return atomic;
+  }
+
+  public long getStartedAt() {
+    return startedAt;
+  }
+
+  public synchronized int getTotal() {
+    return items.size();
+  }
+
+  /**
+   * @return How many items were imported or found unchanged.
+   */
+  public synchronized int getDone() {
+    int done = 0;
+    for (RemoteItemImportStatus status : items.values()) {
+      if (status.isDone()) {
+        done++;
+      }
+    }
+    return done;
+  }
+}
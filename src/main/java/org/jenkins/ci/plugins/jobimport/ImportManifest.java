@@ -0,0 +1,273 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.client.ExportBundle;
+import org.jenkins.ci.plugins.jobimport.client.ImportSource;
+import org.jenkins.ci.plugins.jobimport.client.SiteSource;
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.utils.URLUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * An import described as JSON, for automation driving the import without the web form:
+ * <pre>
+ * {
+ *   "site": "production",
+ *   "remoteFolder": "teams",
+ *   "sources": ["team-a/**", "team-b/deploy"],
+ *   "exclude": "**&#47;scratch-*",
+ *   "includeClasses": "WorkflowJob",
+ *   "destination": "migrated",
+ *   "update": false,
+ *   "installPlugins": false,
+ *   "sync": false,
+ *   "atomic": false,
+ *   "refresh": false
+ * }
+ * </pre>
+ * {@code site} is the name or URL of a configured site. {@code sources} are full names or name patterns below
+ * {@code remoteFolder}, as globs or, with {@code "regex": true}, regular expressions; a selected folder brings its
+ * content along. Without sources every item is imported. Folders are searched unless {@code "recursive": false}.
+ * With {@code "atomic": true} every source is imported with its content all or nothing. Folders the site's index
+ * listed recently are not requested again, unless {@code "refresh": true}.
+ * <p>
+ * Instead of a site, {@code "bundle"} may name a bundle written by {@link ExportBundle} on the disk of this Jenkins,
+ * or the {@code JENKINS_HOME} of another controller, which only administrators may import. The same manifest with a
+ * site can also be exported to such a bundle.
+ * <p>
+ * The results are written as newline delimited JSON: a line with the id of the import, a line per item as soon as it
+ * was imported, and a last line with the summary.
+ */
+final class ImportManifest {
+
+  private static final long POLL_MILLIS = 500;
+
+  private final JenkinsSite site;
+  private final Path bundle;
+  private final String remoteUrl;
+  private final boolean recursive;
+  private final List<String> sources;
+  private final List<Pattern> sourcePatterns = new ArrayList<>();
+  private final RemoteItemFilter filter;
+  private final String destination;
+  private final boolean update;
+  private final boolean installPlugins;
+  private final boolean sync;
+  private final boolean atomic;
+  private final boolean refresh;
+
+  private ImportManifest(JSONObject json) {
+    final String bundlePath = StringUtils.trimToNull(json.optString("bundle", null));
+    if (bundlePath != null) {
+      try {
+        this.bundle = Paths.get(bundlePath);
+      } catch (InvalidPathException e) {
+        throw new IllegalArgumentException("Invalid bundle path " + bundlePath, e);
+      }
+      this.site = null;
+      this.remoteUrl = null;
+    } else {
+      this.bundle = null;
+      this.site = findSite(json.optString("site", null));
+      this.remoteUrl = URLUtils.safeURL(site.getUrl(), json.optString("remoteFolder", ""));
+    }
+    this.recursive = json.optBoolean("recursive", true);
+    this.destination = json.optString("destination", "");
+    this.update = json.optBoolean("update", false);
+    this.installPlugins = json.optBoolean("installPlugins", false);
+    this.sync = json.optBoolean("sync", false);
+    this.atomic = json.optBoolean("atomic", false);
+    this.refresh = json.optBoolean("refresh", false);
+
+    final boolean regex = json.optBoolean("regex", false);
+    final JSONArray sourceArray = json.optJSONArray("sources");
+    this.sources = new ArrayList<>();
+    if (sourceArray != null) {
+      for (int i = 0; i < sourceArray.size(); i++) {
+        sources.add(sourceArray.getString(i));
+      }
+    }
+    final List<String> alternatives = new ArrayList<>();
+    for (String source : sources) {
+      final String sourceRegex = RemoteItemFilter.toRegex(source.trim(), regex);
+      sourcePatterns.add(Pattern.compile(sourceRegex));
+      alternatives.add("(?:" + sourceRegex + ")");
+    }
+    final String exclude = StringUtils.trimToNull(json.optString("exclude", null));
+    // the crawl keeps the sources and everything below them, selecting the sources themselves happens afterwards
+    this.filter = new RemoteItemFilter(
+            alternatives.isEmpty() ? null : "(?:" + String.join("|", alternatives) + ")(?:/.*)?",
+            exclude == null ? null : RemoteItemFilter.toRegex(exclude, regex),
+            true,
+            json.optString("includeClasses", null),
+            json.optString("excludeClasses", null));
+  }
+
+  /**
+   * @throws IllegalArgumentException If the manifest is malformed, names an unknown site or holds an invalid pattern.
+   */
+  static ImportManifest parse(String json) {
+    final ImportManifest manifest;
+    try {
+      manifest = new ImportManifest(JSONObject.fromObject(json));
+    } catch (JSONException e) {
+      throw new IllegalArgumentException("Invalid import manifest: " + e.getMessage(), e);
+    }
+    if (manifest.installPlugins || manifest.bundle != null) {
+      Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+    }
+    return manifest;
+  }
+
+  private static JenkinsSite findSite(String nameOrUrl) {
+    if (StringUtils.isBlank(nameOrUrl)) {
+      throw new IllegalArgumentException("The import manifest names no site");
+    }
+    for (JenkinsSite site : JobImportGlobalConfig.get().getSites()) {
+      if (nameOrUrl.equals(site.getName())
+              || StringUtils.removeEnd(nameOrUrl, "/").equals(StringUtils.removeEnd(site.getUrl(), "/"))) {
+        return site;
+      }
+    }
+    throw new IllegalArgumentException("No Jenkins site is configured as " + nameOrUrl);
+  }
+
+  /**
+   * Discovers and selects the items, runs the import with {@code action} and streams its results to {@code out}.
+   *
+   * @return The number of sources and items that could not be imported.
+   */
+  int execute(JobImportAction action, Writer out) throws IOException, InterruptedException {
+    final ImportSource source = openSource();
+    final List<String> unmatched = new ArrayList<>();
+    final List<String> jobUrls;
+    try {
+      jobUrls = select(source.discover(refresh), unmatched);
+    } catch (IOException | RuntimeException e) {
+      source.close();
+      throw e;
+    }
+
+    int failed = 0;
+    for (String pattern : unmatched) {
+      final JSONObject line = new JSONObject();
+      line.put("source", pattern);
+      line.put("status", MessagesUtils.formatFailedNoRemoteItem());
+      writeLine(out, line);
+      failed++;
+    }
+
+    // the import closes the bundle or directory once it is done
+    final ImportTask task = bundle != null
+            ? new ImportTask(Jenkins.getAuthentication2(), source, filter, destination, jobUrls, installPlugins, update,
+                    sync, atomic)
+            : new ImportTask(Jenkins.getAuthentication2(), site, remoteUrl, recursive, filter, destination, jobUrls,
+                    installPlugins, update, sync, atomic);
+    final BlockingQueue<RemoteItemImportStatus> finished = new LinkedBlockingQueue<>();
+    task.setListener(finished::add);
+    action.submit(task);
+
+    final JSONObject start = new JSONObject();
+    start.put("id", task.getId());
+    writeLine(out, start);
+
+    while (true) {
+      final RemoteItemImportStatus status = finished.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if (status != null) {
+        writeLine(out, ImportTask.toJson(status));
+        if (status.getOutcome() == null) {
+          failed++;
+        }
+      } else if (task.isFinished() && finished.isEmpty()) {
+        break;
+      }
+    }
+
+    final JSONObject end = new JSONObject();
+    end.put("id", task.getId());
+    end.put("finished", true);
+    end.put("summary", task.getSummary());
+    writeLine(out, end);
+    return failed;
+  }
+
+  /**
+   * Discovers and selects the items like {@link #execute}, and writes them to {@code out} as a bundle.
+   *
+   * @param err Told about the sources that match no item
+   * @return The number of sources and items that could not be exported.
+   */
+  int export(OutputStream out, Writer err) throws IOException, InterruptedException {
+    try (ImportSource source = openSource()) {
+      final RemoteItemIndex index = source.discover(refresh);
+      final List<String> unmatched = new ArrayList<>();
+      final List<RemoteItem> plan = ImportTask.plan(index, select(index, unmatched));
+      for (String pattern : unmatched) {
+        err.write(pattern + ": " + MessagesUtils.formatFailedNoRemoteItem() + "\n");
+      }
+      err.flush();
+      return unmatched.size() + ExportBundle.write(source, plan, out);
+    }
+  }
+
+  private ImportSource openSource() throws IOException {
+    return bundle != null ? ImportSource.open(bundle, filter) : new SiteSource(site, remoteUrl, recursive, filter);
+  }
+
+  /**
+   * @param unmatched Gets the sources that match no item
+   * @return The URLs of the items the sources match, or of every top level item when there are no sources.
+   */
+  private List<String> select(RemoteItemIndex index, List<String> unmatched) {
+    if (sources.isEmpty()) {
+      return index.getRoots().stream().map(RemoteItem::getUrl).collect(Collectors.toList());
+    }
+    final List<String> jobUrls = new ArrayList<>();
+    final boolean[] matched = new boolean[sources.size()];
+    for (RemoteItem item : index.getAllItems()) {
+      boolean selected = false;
+      // every source matching the item is matched, even though the item is only selected once
+      for (int i = 0; i < sourcePatterns.size(); i++) {
+        if (sourcePatterns.get(i).matcher(item.getFullName()).matches()) {
+          matched[i] = true;
+          selected = true;
+        }
+      }
+      if (selected) {
+        jobUrls.add(item.getUrl());
+      }
+    }
+    for (int i = 0; i < matched.length; i++) {
+      if (!matched[i]) {
+        unmatched.add(sources.get(i));
+      }
+    }
+    return jobUrls;
+  }
+
+  private static void writeLine(Writer out, JSONObject line) throws IOException {
+    out.write(line.toString());
+    out.write('\n');
+    out.flush();
+  }
+}
@@ -0,0 +1,782 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import hudson.BulkChange;
+import hudson.PluginManager;
+import hudson.model.AbstractItem;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Saveable;
+import hudson.model.TopLevelItem;
+import hudson.model.UpdateCenter;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.VersionNumber;
+import jenkins.model.Jenkins;
+import jenkins.model.ModifiableTopLevelItemGroup;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
+import org.jenkins.ci.plugins.jobimport.client.ConfigDownload;
+import org.jenkins.ci.plugins.jobimport.client.ConfigSource;
+import org.jenkins.ci.plugins.jobimport.client.ImportSource;
+import org.jenkins.ci.plugins.jobimport.client.SiteSource;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.utils.ConfigRewriter;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+import org.jenkins.ci.plugins.jobimport.utils.RemoteItemUtils;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An import running in the background, so that large imports neither block nor time out the request that started
+ * them. Its per-item status can be polled while it runs.
+ * <p>
+ * The status of every item is recorded in an {@link ImportJournal} while the import runs, so that an import
+ * interrupted by a restart can be resumed with {@link #resume}.
+ * <p>
+ * An atomic import imports every selected item together with its content, all or nothing: when any item of such a
+ * subtree fails, what the import created in it is deleted again and what it updated gets its former configuration.
+ * <p>
+ * Every job is written once, by {@code createProjectFromXML} or {@code updateByXml}. While the content of an
+ * imported folder is imported, the saves the folder is asked for are held back by a {@link BulkChange} and written
+ * together once its content is done, unless {@link #BATCH_SAVES} is turned off.
+ */
+public final class ImportTask implements Runnable {
+
+  private static final Logger LOG = Logger.getLogger(ImportTask.class.getName());
+
+  static final boolean BATCH_SAVES = SystemProperties.getBoolean(ImportTask.class.getName() + ".batchSaves", true);
+
+  public enum State {
+    QUEUED, RUNNING, FINISHED
+  }
+
+  private final String id;
+  private final ImportJournal journal;
+  private final Authentication authentication;
+  private final ImportSource source;
+  private final String localFolder;
+  private final List<String> jobUrls;
+  private final boolean installPlugins;
+  private final boolean update;
+  private final boolean sync;
+  private final boolean atomic;
+  // the rewrite rules configured when the import was started
+  private final ConfigRewriter rewriter;
+
+  private final SortedMap<RemoteItem, RemoteItemImportStatus> remoteJobsImportStatus = new ConcurrentSkipListMap<>();
+  private volatile State state = State.QUEUED;
+  private volatile long finishedAt;
+  private volatile Consumer<RemoteItemImportStatus> listener;
+  // the subtree being imported by an atomic import, only used by the thread running it
+  private Subtree subtree;
+
+  ImportTask(Authentication authentication, JenkinsSite remoteJenkins, String remoteUrl, boolean recursiveSearch,
+             RemoteItemFilter filter, String localFolder, List<String> jobUrls, boolean installPlugins, boolean update,
+             boolean sync, boolean atomic) {
+    this(authentication, new SiteSource(remoteJenkins, remoteUrl, recursiveSearch, filter), remoteUrl,
+            recursiveSearch, filter, localFolder, jobUrls, installPlugins, update, sync, atomic, null);
+  }
+
+  /**
+   * Imports from a source that offers all of its items at once, like an export bundle. The import closes the source
+   * when it is done.
+   */
+  ImportTask(Authentication authentication, ImportSource source, RemoteItemFilter filter, String localFolder,
+             List<String> jobUrls, boolean installPlugins, boolean update, boolean sync, boolean atomic) {
+    this(authentication, source, source.getUrl(), true, filter, localFolder, jobUrls, installPlugins, update, sync,
+            atomic, null);
+  }
+
+  private ImportTask(Authentication authentication, ImportSource source, String remoteUrl, boolean recursiveSearch,
+                     RemoteItemFilter filter, String localFolder, List<String> jobUrls, boolean installPlugins,
+                     boolean update, boolean sync, boolean atomic, ImportJournal journal) {
+    this.journal = journal != null ? journal : new ImportJournal(UUID.randomUUID().toString(),
+            authentication.getName(), source.getUrl(), remoteUrl, recursiveSearch, filter, localFolder, jobUrls,
+            installPlugins, update, sync, atomic);
+    this.id = this.journal.getId();
+    this.authentication = authentication;
+    this.source = source;
+    this.localFolder = localFolder;
+    this.jobUrls = new ArrayList<>(jobUrls);
+    this.installPlugins = installPlugins;
+    this.update = update;
+    this.sync = sync;
+    this.atomic = atomic;
+    this.rewriter = ConfigRewriter.of(JobImportGlobalConfig.get().getRewriteRules());
+  }
+
+  /**
+   * Picks up an interrupted import where it stopped: the items its journal records as imported, and which still
+   * exist locally, are not imported again.
+   *
+   * @param source The source the journal names, see {@link ImportJournal#getSiteUrl()}
+   */
+  static ImportTask resume(Authentication authentication, ImportSource source, ImportJournal journal) {
+    return new ImportTask(authentication, source, journal.getRemoteUrl(), journal.isRecursiveSearch(),
+            journal.getFilter(), journal.getLocalFolder(), journal.getJobUrls(), journal.isInstallPlugins(),
+            journal.isUpdate(), journal.isSync(), journal.isAtomic(), journal);
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public boolean isFinished() {
+    return state == State.FINISHED;
+  }
+
+  long getFinishedAt() {
+    return finishedAt;
+  }
+
+  /**
+   * @param listener Told about every item as soon as its import finished, on the thread running the import. Set it
+   *                 before the import starts.
+   */
+  void setListener(Consumer<RemoteItemImportStatus> listener) {
+    this.listener = listener;
+  }
+
+  public SortedMap<RemoteItem, RemoteItemImportStatus> getRemoteJobsImportStatus() {
+    return remoteJobsImportStatus;
+  }
+
+  public String getRootUrl() {
+    return Jenkins.get().getRootUrl();
+  }
+
+  /**
+   * Only the user who started an import, or an administrator, may follow it.
+   */
+  boolean isVisibleTo(Authentication auth) {
+    return StringUtils.equals(authentication.getName(), auth.getName()) || Jenkins.get().hasPermission(Jenkins.ADMINISTER);
+  }
+
+  @Override
+  public void run() {
+    state = State.RUNNING;
+    boolean complete = false;
+    try (ACLContext ignored = ACL.as2(authentication); ImportSource closing = source) {
+      final RemoteItemIndex remoteJobs = source.discover(false);
+
+      final List<RemoteItem> plan = plan(remoteJobs, jobUrls);
+      for (RemoteItem remoteJob : plan) {
+        remoteJobsImportStatus.put(remoteJob, resumedStatus(remoteJob));
+      }
+      journal.open(remoteJobsImportStatus.values());
+      doImportInternal(plan);
+      complete = !Thread.currentThread().isInterrupted();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOG.log(Level.WARNING, "Job Import " + id + " was interrupted", e);
+    } catch (final IOException | RuntimeException e) {
+      LOG.log(Level.WARNING, "Job Import " + id + " failed", e);
+    } finally {
+      journal.close(complete);
+      finishedAt = System.currentTimeMillis();
+      state = State.FINISHED;
+    }
+  }
+
+  /**
+   * @return The status of an item, carried over from the journal if an earlier run already imported it and the local
+   * item is still there.
+   */
+  private RemoteItemImportStatus resumedStatus(RemoteItem remoteJob) {
+    final RemoteItemImportStatus status = new RemoteItemImportStatus(remoteJob);
+    final RemoteItemImportStatus previous = journal.get(remoteJob.getUrl());
+    if (previous != null && previous.isDone() && previous.getLocalFullName() != null
+            && Jenkins.get().getItemByFullName(previous.getLocalFullName()) != null) {
+      status.setLocalFullName(previous.getLocalFullName());
+      status.setStatus(previous.getStatus(), previous.getOutcome());
+    }
+    return status;
+  }
+
+  /**
+   * @return The selected items and everything below the selected folders, each once and every folder before its
+   * content.
+   */
+  static List<RemoteItem> plan(RemoteItemIndex remoteJobs, List<String> jobUrls) {
+    // full names sort every folder before its content
+    final SortedSet<RemoteItem> selected = new TreeSet<>();
+    for (final String jobUrl : jobUrls) {
+      final RemoteItem remoteJob = RemoteItemUtils.getRemoteJob(remoteJobs, jobUrl);
+      if (remoteJob != null) {
+        selected.add(remoteJob);
+      }
+    }
+
+    final Set<RemoteItem> plan = new LinkedHashSet<>();
+    for (RemoteItem remoteJob : selected) {
+      addWithDescendants(remoteJob, plan);
+    }
+    return new ArrayList<>(plan);
+  }
+
+  private static void addWithDescendants(RemoteItem remoteJob, Set<RemoteItem> plan) {
+    if (plan.add(remoteJob) && remoteJob.isFolder()) {
+      for (RemoteItem childJob : ((RemoteFolder) remoteJob).getChildren()) {
+        addWithDescendants(childJob, plan);
+      }
+    }
+  }
+
+  /**
+   * Per-item progress of this import, as JSON.
+   */
+  public void doProgress(final StaplerRequest2 request, final StaplerResponse2 response) throws IOException {
+    Jenkins.get().checkPermission(JobImportAction.JOB_IMPORT);
+
+    final JSONArray items = new JSONArray();
+    for (RemoteItemImportStatus status : remoteJobsImportStatus.values()) {
+      items.add(toJson(status));
+    }
+
+    final JSONObject progress = new JSONObject();
+    progress.put("id", id);
+    progress.put("state", state.name());
+    progress.put("finished", isFinished());
+    progress.put("summary", getSummary());
+    progress.put("items", items);
+
+    response.setContentType("application/json;charset=UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    response.getWriter().print(progress.toString());
+  }
+
+  /**
+   * @return How many items of each outcome this import had so far.
+   */
+  JSONObject getSummary() {
+    final Map<RemoteItemImportStatus.Outcome, Integer> outcomes = new EnumMap<>(RemoteItemImportStatus.Outcome.class);
+    for (RemoteItemImportStatus.Outcome outcome : RemoteItemImportStatus.Outcome.values()) {
+      outcomes.put(outcome, 0);
+    }
+    int failed = 0;
+    for (RemoteItemImportStatus status : remoteJobsImportStatus.values()) {
+      if (status.getOutcome() != null) {
+        outcomes.merge(status.getOutcome(), 1, Integer::sum);
+      } else if (status.getStatus() != null) {
+        failed++;
+      }
+    }
+
+    final JSONObject summary = new JSONObject();
+    for (Map.Entry<RemoteItemImportStatus.Outcome, Integer> outcome : outcomes.entrySet()) {
+      summary.put(outcome.getKey().name().toLowerCase(Locale.ENGLISH), outcome.getValue());
+    }
+    summary.put("failed", failed);
+    return summary;
+  }
+
+  static JSONObject toJson(RemoteItemImportStatus status) {
+    final JSONObject item = new JSONObject();
+    item.put("name", status.getRemoteJob().getName());
+    item.put("fullName", status.getRemoteJob().getFullName());
+    item.put("url", status.getRemoteJob().getUrl());
+    item.put("status", StringUtils.defaultString(status.getStatus()));
+    if (status.getOutcome() != null) {
+      item.put("outcome", status.getOutcome().name());
+    }
+    return item;
+  }
+
+  /**
+   * Imports the planned items in order while their {@code config.xml} are downloaded ahead. An item goes into the local
+   * counterpart of its remote folder when that folder is part of the plan, and into the local folder otherwise.
+   * <p>
+   * When plugins are to be installed, the plugins every pending item needs are installed at once, before any item is
+   * created, see {@link #requiredPlugins}.
+   * <p>
+   * A sync updates existing items like {@link #update}, but only downloads and applies the configurations that changed
+   * since the last sync.
+   * <p>
+   * An atomic import reports the items of a subtree, and records their sync, only once the whole subtree was imported.
+   */
+  private void doImportInternal(List<RemoteItem> plan)
+          throws InterruptedException {
+    // local full name of every item imported by this run
+    final Map<RemoteItem, String> imported = new HashMap<>();
+    final SyncRecords syncRecords = sync ? SyncRecords.get() : null;
+
+    // only the items an earlier run did not import are downloaded
+    final List<RemoteItem> pending = new ArrayList<>(plan.size());
+    for (RemoteItem remoteJob : plan) {
+      if (!remoteJobsImportStatus.get(remoteJob).isDone()) {
+        pending.add(remoteJob);
+      }
+    }
+
+    if (installPlugins && !pending.isEmpty()) {
+      try {
+        // checked when the import was requested, and again here in case the user lost the permission since
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+      } catch (final AccessDeniedException e) {
+        for (RemoteItem remoteJob : plan) {
+          final RemoteItemImportStatus status = remoteJobsImportStatus.get(remoteJob);
+          if (status.isDone()) {
+            report(status);
+          } else {
+            finish(status, MessagesUtils.formatFailedException(e));
+          }
+        }
+        return;
+      }
+      installPlugins(requiredPlugins(pending, syncRecords));
+    }
+
+    // the imported folders whose content is being imported, innermost last
+    final Deque<Batch> batches = new ArrayDeque<>();
+
+    try (ConfigSource configs = source.configs(pending, item -> lastSync(syncRecords, item))) {
+      for (RemoteItem remoteJob : plan) {
+        final RemoteItemImportStatus status = remoteJobsImportStatus.get(remoteJob);
+        // the plan keeps the content of a folder together, so a folder is done once an item outside of it comes up
+        while (!batches.isEmpty() && !isDescendant(remoteJob, batches.peekLast().folder)) {
+          batches.removeLast().end();
+        }
+        if (atomic) {
+          enterSubtree(remoteJob, syncRecords);
+        }
+        if (status.isDone()) {
+          imported.put(remoteJob, status.getLocalFullName());
+          report(status);
+          continue;
+        }
+
+        String localPath = localFolder;
+        if (remoteJob.hasParent() && remoteJobsImportStatus.containsKey(remoteJob.getParent())) {
+          localPath = imported.get(remoteJob.getParent());
+          if (localPath == null) {
+            configs.skip();
+            finish(status, MessagesUtils.formatFailedParentNotImported());
+            continue;
+          }
+        }
+
+        ModifiableTopLevelItemGroup localGroup = null;
+        boolean created = false;
+        try {
+          final ConfigDownload download = configs.next();
+
+          final SyncRecords.Record record = lastSyncRecord(syncRecords, remoteJob);
+          final String sha256 = sync && !download.isNotModified() ? DigestUtils.sha256Hex(download.getBody()) : null;
+          if (record != null && (download.isNotModified() || StringUtils.equals(record.getSha256(), sha256))) {
+            imported.put(remoteJob, record.getLocalFullName());
+            status.setLocalFullName(record.getLocalFullName());
+            finish(status, MessagesUtils.formatSyncUnchanged(), RemoteItemImportStatus.Outcome.UNCHANGED);
+            continue;
+          }
+          if (download.isNotModified()) {
+            // the record the download was asked for is gone since, without it the next sync downloads it in full
+            finish(status, MessagesUtils.formatFailedNotModified());
+            continue;
+          }
+          // the sync records keep the hash of the remote configuration, before it is rewritten, and of the rules
+          final byte[] configXml = rewriter.rewrite(download.getBody());
+
+          localGroup = getLocalGroup(localPath);
+          final TopLevelItem currentItem = localGroup.getItem(remoteJob.getName());
+          if (!update && !sync && currentItem != null) {
+            finish(status, MessagesUtils.formatFailedDuplicateJobName());
+            continue;
+          }
+
+          final Item newItem;
+          if ((update || sync) && currentItem instanceof AbstractItem) {
+            if (subtree != null) {
+              subtree.previousConfigs.put((AbstractItem) currentItem,
+                      ((AbstractItem) currentItem).getConfigFile().asString());
+            }
+            try (ImportMetrics.Sample sample = ImportMetrics.start(source.getUrl(), ImportMetrics.Operation.UPDATE)) {
+              ((AbstractItem)currentItem).updateByXml((Source)new StreamSource(new ByteArrayInputStream(configXml)));
+              sample.succeeded(configXml.length);
+            }
+            newItem = currentItem;
+          } else {
+            try (ImportMetrics.Sample sample = ImportMetrics.start(source.getUrl(), ImportMetrics.Operation.CREATE)) {
+              newItem = localGroup.createProjectFromXML(remoteJob.getName(), new ByteArrayInputStream(configXml));
+              sample.succeeded(configXml.length);
+            }
+            created = true;
+            if (subtree != null && newItem != null) {
+              subtree.created.add(newItem);
+            }
+          }
+
+          if (newItem != null) {
+            if (BATCH_SAVES && remoteJob.isFolder() && newItem instanceof ItemGroup) {
+              batches.addLast(new Batch(remoteJob, newItem));
+            }
+            imported.put(remoteJob, newItem.getFullName());
+            status.setLocalFullName(newItem.getFullName());
+            if (sync) {
+              final SyncRecords.Record synced = new SyncRecords.Record(newItem.getFullName(), sha256,
+                      download.getEtag(), download.getLastModified(), rewriter.getFingerprint());
+              if (subtree != null) {
+                subtree.syncRecords.put(remoteJob.getUrl(), synced);
+              } else {
+                syncRecords.put(remoteJob.getUrl(), synced);
+              }
+            }
+          }
+
+          if (!sync) {
+            finish(status, MessagesUtils.formatSuccess(), created ? RemoteItemImportStatus.Outcome.NEW
+                    : RemoteItemImportStatus.Outcome.CHANGED);
+          } else if (created) {
+            finish(status, MessagesUtils.formatSyncNew(), RemoteItemImportStatus.Outcome.NEW);
+          } else {
+            finish(status, MessagesUtils.formatSyncChanged(), RemoteItemImportStatus.Outcome.CHANGED);
+          }
+        } catch (final InterruptedException e) {
+          throw e;
+        } catch (final Exception e) {
+          LOG.warning("Job Import Failed: " + e.getMessage());
+          if (LOG.isLoggable(Level.INFO)) {
+            LOG.log(Level.INFO, e.getMessage(), e);
+          }
+          // an atomic import deletes it along with the rest of the subtree
+          if (created && subtree == null) {
+            deleteQuietly(localGroup.getItem(remoteJob.getName()));
+          }
+          finish(status, MessagesUtils.formatFailedException(e));
+        }
+      }
+      // written before a failed subtree is rolled back, which deletes them
+      while (!batches.isEmpty()) {
+        batches.removeLast().end();
+      }
+      if (subtree != null) {
+        leaveSubtree(syncRecords);
+      }
+    } finally {
+      while (!batches.isEmpty()) {
+        batches.removeLast().end();
+      }
+      if (subtree != null) {
+        // interrupted in the middle of a subtree
+        subtree.failed = true;
+        leaveSubtree(syncRecords);
+      }
+      if (syncRecords != null) {
+        try {
+          syncRecords.save();
+        } catch (final IOException e) {
+          LOG.log(Level.WARNING, "Failed to save the sync records", e);
+        }
+      }
+    }
+  }
+
+  private void finish(RemoteItemImportStatus status, String message) {
+    finish(status, message, null);
+  }
+
+  /**
+   * Sets the final status of an item, records it and tells the listener about it. Within the subtree of an atomic
+   * import, that waits until the whole subtree was imported.
+   */
+  private void finish(RemoteItemImportStatus status, String message, RemoteItemImportStatus.Outcome outcome) {
+    status.setStatus(message, outcome);
+    if (subtree != null) {
+      subtree.statuses.add(status);
+      subtree.failed |= outcome == null;
+    } else {
+      report(status);
+    }
+  }
+
+  private void report(RemoteItemImportStatus status) {
+    journal.record(status);
+    final Consumer<RemoteItemImportStatus> current = listener;
+    if (current != null) {
+      current.accept(status);
+    }
+  }
+
+  /**
+   * Starts the subtree of an item, ending the previous subtree when the item is not part of it. The plan keeps the
+   * items of a subtree together.
+   */
+  private void enterSubtree(RemoteItem remoteJob, SyncRecords syncRecords) {
+    RemoteItem root = remoteJob;
+    while (root.hasParent() && remoteJobsImportStatus.containsKey(root.getParent())) {
+      root = root.getParent();
+    }
+    if (subtree != null && subtree.root != root) {
+      leaveSubtree(syncRecords);
+    }
+    if (subtree == null) {
+      subtree = new Subtree(root);
+    }
+  }
+
+  /**
+   * Keeps what the current subtree imported, or undoes it if any of its items failed, then reports its items.
+   */
+  private void leaveSubtree(SyncRecords syncRecords) {
+    final Subtree done = subtree;
+    subtree = null;
+    if (done.failed) {
+      rollback(done);
+      for (RemoteItemImportStatus status : done.statuses) {
+        if (status.getOutcome() != null) {
+          status.setLocalFullName(null);
+          status.setStatus(MessagesUtils.formatFailedRolledBack(), null);
+        }
+      }
+    } else if (syncRecords != null) {
+      for (Map.Entry<String, SyncRecords.Record> record : done.syncRecords.entrySet()) {
+        syncRecords.put(record.getKey(), record.getValue());
+      }
+    }
+    for (RemoteItemImportStatus status : done.statuses) {
+      report(status);
+    }
+  }
+
+  /**
+   * Deletes the items a subtree created and restores the configuration of those it updated. Deleting a folder
+   * deletes its content, so only the top-most created items are deleted.
+   */
+  private static void rollback(Subtree subtree) {
+    final Set<String> created = new HashSet<>();
+    for (Item item : subtree.created) {
+      created.add(item.getFullName());
+    }
+    for (Item item : subtree.created) {
+      if (!created.contains(item.getParent().getFullName())) {
+        deleteQuietly(item);
+      }
+    }
+    for (Map.Entry<AbstractItem, String> previous : subtree.previousConfigs.entrySet()) {
+      try {
+        previous.getKey().updateByXml((Source) new StreamSource(new StringReader(previous.getValue())));
+      } catch (final IOException | RuntimeException e) {
+        LOG.log(Level.WARNING, "Failed to restore the configuration of " + previous.getKey().getFullName()
+                + " after a failed import", e);
+      }
+    }
+  }
+
+  private static boolean isDescendant(RemoteItem item, RemoteItem folder) {
+    for (RemoteItem parent = item.getParent(); parent != null; parent = parent.getParent()) {
+      if (parent == folder) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Holds back the saves of a folder while its content is imported, and writes the folder once when its content is
+   * done.
+   */
+  private static final class Batch {
+    final RemoteItem folder;
+    final BulkChange bulkChange;
+
+    Batch(RemoteItem folder, Saveable item) {
+      this.folder = folder;
+      this.bulkChange = new BulkChange(item);
+    }
+
+    void end() {
+      try {
+        bulkChange.commit();
+      } catch (final IOException e) {
+        LOG.log(Level.WARNING, "Failed to save " + folder.getFullName(), e);
+      }
+    }
+  }
+
+  /**
+   * What an atomic import changed in one selected item and its content, until the whole subtree was imported.
+   */
+  private static final class Subtree {
+    final RemoteItem root;
+    final List<RemoteItemImportStatus> statuses = new ArrayList<>();
+    // in the order they were created, every folder before its content
+    final List<Item> created = new ArrayList<>();
+    final Map<AbstractItem, String> previousConfigs = new LinkedHashMap<>();
+    final Map<String, SyncRecords.Record> syncRecords = new LinkedHashMap<>();
+    boolean failed;
+
+    Subtree(RemoteItem root) {
+      this.root = root;
+    }
+  }
+
+  /**
+   * @return What the last sync imported from this item into the local item this import targets, as long as that
+   * local item still exists and was imported with the current rewrite rules.
+   */
+  private SyncRecords.Record lastSyncRecord(SyncRecords syncRecords, RemoteItem remoteJob) {
+    if (syncRecords == null) {
+      return null;
+    }
+    final SyncRecords.Record record = syncRecords.get(remoteJob.getUrl(), targetFullName(remoteJob));
+    if (record == null || !StringUtils.equals(record.getRules(), rewriter.getFingerprint())
+            || Jenkins.get().getItemByFullName(record.getLocalFullName()) == null) {
+      return null;
+    }
+    return record;
+  }
+
+  /**
+   * @return The full name of the local item a remote item is imported as: below the counterpart of its remote folder
+   * when that folder is part of the import, and below the local folder otherwise.
+   */
+  private String targetFullName(RemoteItem remoteJob) {
+    final String parent = remoteJob.hasParent() && remoteJobsImportStatus.containsKey(remoteJob.getParent())
+            ? targetFullName(remoteJob.getParent())
+            : StringUtils.strip(StringUtils.trimToEmpty(localFolder), Constants.SEPARATOR);
+    return parent.isEmpty() ? remoteJob.getName() : parent + Constants.SEPARATOR + remoteJob.getName();
+  }
+
+  private ConfigDownload lastSync(SyncRecords syncRecords, RemoteItem remoteJob) {
+    final SyncRecords.Record record = lastSyncRecord(syncRecords, remoteJob);
+    return record == null ? null : new ConfigDownload(null, record.getEtag(), record.getLastModified());
+  }
+
+  /**
+   * Reads the plugins the pending items need, keeping the newest version any of them asks for. Only the plugins are
+   * kept: every configuration is read again when its item is created, so that the bodies never pile up in memory,
+   * at the cost of reading each of them twice. What a sync finds unchanged is left out.
+   */
+  private Map<String, VersionNumber> requiredPlugins(List<RemoteItem> pending, SyncRecords syncRecords)
+          throws InterruptedException {
+    final PluginManager pluginManager = Jenkins.get().getPluginManager();
+
+    final Map<String, VersionNumber> requiredPlugins = new TreeMap<>();
+    try (ConfigSource configs = source.configs(pending, item -> lastSync(syncRecords, item))) {
+      for (RemoteItem remoteJob : pending) {
+        try {
+          final ConfigDownload download = configs.next();
+          final SyncRecords.Record record = lastSyncRecord(syncRecords, remoteJob);
+          if (download.isNotModified() || (record != null
+                  && StringUtils.equals(record.getSha256(), DigestUtils.sha256Hex(download.getBody())))) {
+            continue;
+          }
+          for (Map.Entry<String, VersionNumber> plugin : pluginManager.parseRequestedPlugins(
+                  new ByteArrayInputStream(rewriter.rewrite(download.getBody()))).entrySet()) {
+            requiredPlugins.merge(plugin.getKey(), plugin.getValue(), (a, b) -> a.isOlderThan(b) ? b : a);
+          }
+        } catch (final IOException | RuntimeException e) {
+          // importing the item reports the failure
+          LOG.log(Level.FINE, "Failed to read the plugins " + remoteJob.getFullName() + " needs", e);
+        }
+      }
+    }
+    return requiredPlugins;
+  }
+
+  /**
+   * Installs or updates the plugins in one go, and waits for the installations to finish.
+   */
+  private void installPlugins(Map<String, VersionNumber> requiredPlugins) throws InterruptedException {
+    if (requiredPlugins.isEmpty()) {
+      return;
+    }
+
+    final StringBuilder combined = new StringBuilder("<plugins>");
+    for (Map.Entry<String, VersionNumber> plugin : requiredPlugins.entrySet()) {
+      combined.append("<plugin plugin=\"")
+              .append(StringEscapeUtils.escapeXml10(plugin.getKey() + "@" + plugin.getValue()))
+              .append("\"/>");
+    }
+    combined.append("</plugins>");
+
+    try (ImportMetrics.Sample sample = ImportMetrics.start(source.getUrl(), ImportMetrics.Operation.PLUGIN_PREVALIDATION)) {
+      final List<Future<UpdateCenter.UpdateCenterJob>> installations;
+      try {
+        installations = Jenkins.get().getPluginManager().prevalidateConfig(
+                new ByteArrayInputStream(combined.toString().getBytes(StandardCharsets.UTF_8)));
+      } catch (final IOException e) {
+        LOG.log(Level.WARNING, "Failed to install the required plugins", e);
+        return;
+      }
+      boolean installed = true;
+      for (Future<UpdateCenter.UpdateCenterJob> installation : installations) {
+        try {
+          installation.get();
+        } catch (final ExecutionException e) {
+          LOG.log(Level.WARNING, "Failed to install a required plugin", e);
+          installed = false;
+        }
+      }
+      if (installed) {
+        sample.succeeded();
+      }
+    }
+  }
+
+  private static ModifiableTopLevelItemGroup getLocalGroup(String localPath) throws IOException {
+    if (StringUtils.isBlank(localPath) || StringUtils.equals("/", localPath.trim())) {
+      return Jenkins.get();
+    }
+    final Item item = Jenkins.get().getItemByFullName(localPath.trim());
+    if (item instanceof ModifiableTopLevelItemGroup) {
+      return (ModifiableTopLevelItemGroup) item;
+    }
+    throw new IOException("No local folder " + localPath);
+  }
+
+  private static void deleteQuietly(Item item) {
+    if (item == null) {
+      return;
+    }
+    try {
+      item.delete();
+    } catch (final IOException | InterruptedException e) {
+      LOG.log(Level.WARNING, "Failed to clean up " + item.getFullName() + " after a failed import", e);
+    }
+  }
+}
@@ -30,31 +30,38 @@ import com.cloudbees.plugins.credentials.common.StandardUsernameListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import hudson.Extension;
-import hudson.PluginManager;
-import hudson.model.AbstractItem;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
-import hudson.model.Item;
+import hudson.model.Failure;
 import hudson.model.RootAction;
-import hudson.model.TopLevelItem;
 import hudson.security.ACL;
 import hudson.security.Permission;
 import hudson.security.PermissionGroup;
 import hudson.security.PermissionScope;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.client.ExportBundle;
+import org.jenkins.ci.plugins.jobimport.client.ImportSource;
 import org.jenkins.ci.plugins.jobimport.client.RestApiClient;
+import org.jenkins.ci.plugins.jobimport.client.SiteClient;
+import org.jenkins.ci.plugins.jobimport.client.SiteSource;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
+import org.jenkins.ci.plugins.jobimport.metrics.OperationStats;
 import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
 import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
 import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
 import org.jenkins.ci.plugins.jobimport.utils.Constants;
 import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
 import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.NullSafeCredentials;
-import org.jenkins.ci.plugins.jobimport.utils.RemoteItemUtils;
 import org.jenkins.ci.plugins.jobimport.utils.URLUtils;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -65,21 +72,25 @@ import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.verb.POST;
 
 import jakarta.servlet.ServletException;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.SortedMap;
-import java.util.SortedSet;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.logging.Level;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-
-import static org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.allCredentials;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * @author <a href="mailto:jieryn@gmail.com">Jesse Farinacci</a>
@@ -97,6 +108,17 @@ public final class JobImportAction implements RootAction, Describable<JobImportA
 
   private static final Logger LOG = Logger.getLogger(JobImportAction.class.getName());
 
+  static final int MAX_CONCURRENT_IMPORTS = 2;
+  static final int BROWSE_PAGE_SIZE = 100;
+  static final int BROWSE_MAX_PAGE_SIZE = 1000;
+  static final long FINISHED_TASK_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+  static final String EXPORT_FILE_NAME = "job-export.zip";
+
+  private static final ExecutorService IMPORTS = Executors.newFixedThreadPool(MAX_CONCURRENT_IMPORTS,
+          new NamingThreadFactory(new DaemonThreadFactory(), "Job Import"));
+
+  private final transient Map<String, ImportTask> tasks = new ConcurrentHashMap<>();
+
   public void doClear(final StaplerRequest2 request, final StaplerResponse2 response)
           throws ServletException, IOException {
     response.sendRedirect(Jenkins.get().getRootUrl() + getUrlName());
@@ -109,173 +131,357 @@ public final class JobImportAction implements RootAction, Describable<JobImportA
 
     Jenkins.get().checkPermission(JOB_IMPORT);
 
-    final SortedMap<RemoteItem, RemoteItemImportStatus> remoteJobsImportStatus = new TreeMap<RemoteItem, RemoteItemImportStatus>();
-
     final String localFolder = request.getParameter(Constants.LOCAL_FOLDER_PARAM);
-    final String remoteJobsAvailable = (String)request.getParameter("remoteJobsAvailable");
 
-    final String site = (String)request.getParameter("remoteJenkins");
+    final JenkinsSite remoteJenkins = findSite(request.getParameter("remoteJenkins"));
 
-    JenkinsSite remoteJenkins = new JenkinsSite("", "");
-    for (JenkinsSite js : JobImportGlobalConfig.get().getSites()) {
-      if ((js.getName() + "-" + js.getUrl() + "-" + js.getDefaultCredentialsId()).equals(site)) {
-        remoteJenkins = js;
-        break;
+    final String remoteFolder = request.getParameter("remoteFolder");
+    final String remoteUrl = URLUtils.safeURL(remoteJenkins.getUrl(), remoteFolder);
+    final String recursiveSearch = request.getParameter(Constants.RECURSIVE_PARAM);
+
+    final boolean installPlugins = shouldInstallPlugins(request.getParameter("plugins"));
+    if (installPlugins) {
+      // importing jobs does not allow installing plugins
+      Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+    }
+
+    final ImportTask task = new ImportTask(Jenkins.getAuthentication2(), remoteJenkins, remoteUrl, isRecursive(recursiveSearch),
+            filterFrom(request), localFolder, selectedJobUrls(request), installPlugins, shouldUpdate(request.getParameter("update")),
+            shouldSync(request.getParameter("sync")), isAtomic(request.getParameter("atomic")));
+    submit(task);
+
+    response.sendRedirect("task/" + task.getId() + "/");
+  }
+
+  /**
+   * Downloads the selected items, with the content of the selected folders, as a zip bundle that can be imported by a
+   * Jenkins which cannot reach the remote one, see {@link ExportBundle}.
+   */
+  @POST
+  @Restricted(NoExternalUse.class)
+  public void doExport(final StaplerRequest2 request, final StaplerResponse2 response)
+          throws IOException, InterruptedException {
+
+    Jenkins.get().checkPermission(JOB_IMPORT);
+
+    final JenkinsSite remoteJenkins = findSite(request.getParameter("remoteJenkins"));
+    final String remoteUrl = URLUtils.safeURL(remoteJenkins.getUrl(), request.getParameter("remoteFolder"));
+    final SiteSource source = new SiteSource(remoteJenkins, remoteUrl,
+            isRecursive(request.getParameter(Constants.RECURSIVE_PARAM)), filterFrom(request));
+    final List<RemoteItem> plan = ImportTask.plan(source.discover(false), selectedJobUrls(request));
+
+    response.setContentType("application/zip");
+    response.setHeader("Content-Disposition", "attachment; filename=\"" + EXPORT_FILE_NAME + "\"");
+    ExportBundle.write(source, plan, response.getOutputStream());
+  }
+
+  /**
+   * Imports a bundle written by {@link #doExport}, or the {@code JENKINS_HOME} of another controller, from the disk of
+   * this Jenkins. Only administrators may read files from there.
+   */
+  @POST
+  @Restricted(NoExternalUse.class)
+  public void doImportBundle(final StaplerRequest2 request, final StaplerResponse2 response) throws IOException {
+
+    Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+
+    final String bundle = StringUtils.trimToEmpty(request.getParameter(Constants.BUNDLE_PARAM));
+    final Path path;
+    try {
+      path = Paths.get(bundle);
+    } catch (final InvalidPathException e) {
+      throw new Failure(Messages.Job_Import_Plugin_Bundle_Invalid(bundle, e.getMessage()));
+    }
+    final RemoteItemFilter filter = filterFrom(request);
+    final ImportSource source = openBundle(path, filter);
+    final List<String> jobUrls = new ArrayList<>();
+    for (RemoteItem root : source.discover(false).getRoots()) {
+      jobUrls.add(root.getUrl());
+    }
+
+    final ImportTask task = new ImportTask(Jenkins.getAuthentication2(), source, filter,
+            request.getParameter(Constants.LOCAL_FOLDER_PARAM), jobUrls, shouldInstallPlugins(request.getParameter("plugins")),
+            shouldUpdate(request.getParameter("update")), shouldSync(request.getParameter("sync")),
+            isAtomic(request.getParameter("atomic")));
+    submit(task);
+
+    response.sendRedirect("task/" + task.getId() + "/");
+  }
+
+  private static ImportSource openBundle(final Path bundle, final RemoteItemFilter filter) {
+    try {
+      return ImportSource.open(bundle, filter);
+    } catch (final IOException e) {
+      throw new Failure(Messages.Job_Import_Plugin_Bundle_Invalid(bundle, e.getMessage()));
+    }
+  }
+
+  private static List<String> selectedJobUrls(final StaplerRequest2 request) {
+    final List<String> jobUrls = new ArrayList<>();
+    if ("true".equalsIgnoreCase(request.getParameter("remoteJobsAvailable"))
+            && request.hasParameter(Constants.JOB_URL_PARAM)) {
+      jobUrls.addAll(Arrays.asList(request.getParameterValues(Constants.JOB_URL_PARAM)));
+    }
+    return jobUrls;
+  }
+
+  /**
+   * Runs an import described by the JSON manifest in the request body, see {@link ImportManifest}, and streams the
+   * result of every item back as newline delimited JSON while the import runs.
+   */
+  @POST
+  @Restricted(NoExternalUse.class)
+  public void doApiImport(final StaplerRequest2 request, final StaplerResponse2 response)
+          throws IOException, InterruptedException {
+
+    Jenkins.get().checkPermission(JOB_IMPORT);
+
+    final ImportManifest manifest;
+    try {
+      manifest = ImportManifest.parse(IOUtils.toString(request.getReader()));
+    } catch (final IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    response.setContentType("application/x-ndjson;charset=UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    manifest.execute(this, response.getWriter());
+  }
+
+  /**
+   * @param id The id of an import started by {@link #doImport}
+   * @return The import, while it runs and for a while after it finished.
+   */
+  @Restricted(NoExternalUse.class)
+  public ImportTask getTask(final String id) {
+    Jenkins.get().checkPermission(JOB_IMPORT);
+    final ImportTask task = tasks.get(id);
+    if (task == null || !task.isVisibleTo(Jenkins.getAuthentication2())) {
+      return null;
+    }
+    return task;
+  }
+
+  void submit(final ImportTask task) {
+    final long expired = System.currentTimeMillis() - FINISHED_TASK_RETENTION_MILLIS;
+    tasks.values().removeIf(t -> t.isFinished() && t.getFinishedAt() < expired);
+
+    tasks.put(task.getId(), task);
+    IMPORTS.submit(task);
+  }
+
+  /**
+   * @return The imports that were interrupted, by a restart or a failure, and can be resumed by this user.
+   */
+  @Restricted(NoExternalUse.class)
+  public List<ImportJournal> getInterruptedImports() {
+    if (!Jenkins.get().hasPermission(JOB_IMPORT)) {
+      return Collections.emptyList();
+    }
+    final List<ImportJournal> journals = new ArrayList<>();
+    for (ImportJournal journal : ImportJournal.all()) {
+      final ImportTask task = tasks.get(journal.getId());
+      if ((task == null || task.isFinished()) && isVisibleTo(journal)) {
+        journals.add(journal);
       }
     }
+    return journals;
+  }
 
-    final String credentialId = remoteJenkins.getDefaultCredentialsId();
+  /**
+   * Resumes an interrupted import: what it already imported is kept, the rest is imported.
+   */
+  @POST
+  @Restricted(NoExternalUse.class)
+  public void doResume(@QueryParameter final String id, final StaplerResponse2 response) throws IOException {
 
-    final SortedSet<RemoteItem> remoteJobs = new TreeSet<RemoteItem>();
-    final String remoteFolder = request.getParameter("remoteFolder");
-    final String remoteUrl = URLUtils.safeURL(remoteJenkins.getUrl(), remoteFolder);
-    final String recursiveSearch = request.getParameter(Constants.RECURSIVE_PARAM);
-    doQueryInternal(null, remoteUrl, CredentialsUtils.getCredentials(credentialId), recursiveSearch, remoteJobs);
+    Jenkins.get().checkPermission(JOB_IMPORT);
 
-    if (remoteJobsAvailable != null && remoteJobsAvailable.equalsIgnoreCase("true")) {
-      if (request.hasParameter(Constants.JOB_URL_PARAM)) {
-        for (final String jobUrl : Arrays.asList(request.getParameterValues(Constants.JOB_URL_PARAM))) {
-          doImportInternal(jobUrl, localFolder, credentialId, shouldInstallPlugins(request.getParameter("plugins")), shouldUpdate(request.getParameter("update")), remoteJobs, remoteJobsImportStatus);
-        }
+    final ImportJournal journal = ImportJournal.load(id);
+    final ImportTask running = tasks.get(id);
+    if (journal == null || !isVisibleTo(journal) || (running != null && !running.isFinished())) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    if (journal.isInstallPlugins()) {
+      Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+    }
+
+    final ImportTask task = ImportTask.resume(Jenkins.getAuthentication2(), sourceOf(journal), journal);
+    submit(task);
+
+    response.sendRedirect("task/" + task.getId() + "/");
+  }
+
+  /**
+   * @return The site, or the bundle or directory on disk, an interrupted import was importing from.
+   */
+  private static ImportSource sourceOf(final ImportJournal journal) {
+    for (JenkinsSite site : JobImportGlobalConfig.get().getSites()) {
+      if (StringUtils.equals(site.getUrl(), journal.getSiteUrl())) {
+        return new SiteSource(site, journal.getRemoteUrl(), journal.isRecursiveSearch(), journal.getFilter());
       }
     }
+    if (StringUtils.startsWith(journal.getSiteUrl(), "file:")) {
+      Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+      return openBundle(Paths.get(URI.create(journal.getSiteUrl())), journal.getFilter());
+    }
+    throw new Failure(Messages.Job_Import_Plugin_Resume_NoSite(journal.getSiteUrl()));
+  }
 
-    new ForwardToView(this, "index")
-            .with("step2", "true")
-            .with("remoteJobsAvailable", remoteJobsAvailable)
-            .with("remoteJobsImportStatus", remoteJobsImportStatus)
-            .with("remoteJobsImportStatusAvailable", remoteJobsImportStatus.size()>0)
-            .generateResponse(request, response, this);
+  private static boolean isVisibleTo(final ImportJournal journal) {
+    return StringUtils.equals(journal.getUser(), Jenkins.getAuthentication2().getName())
+            || Jenkins.get().hasPermission(Jenkins.ADMINISTER);
   }
+
    @POST
   public void doQuery(final StaplerRequest2 request, final StaplerResponse2 response)
           throws ServletException, IOException {
 
     Jenkins.get().checkPermission(JOB_IMPORT);
 
-    final SortedSet<RemoteItem> remoteJobs = new TreeSet<RemoteItem>();
-
     final String remoteFolder = request.getParameter("remoteFolder");
 
-    final String site = request.getParameter("_.jenkinsSites");
-
-    JenkinsSite remoteJenkins = new JenkinsSite("", "");
-    for (JenkinsSite js : JobImportGlobalConfig.get().getSites()) {
-      if ((js.getName() + "-" + js.getUrl() + "-" + js.getDefaultCredentialsId()).equals(site)) {
-        remoteJenkins = js;
-        break;
-      }
-    }
+    final JenkinsSite remoteJenkins = findSite(request.getParameter("_.jenkinsSites"));
 
     final String credentialId = remoteJenkins.getDefaultCredentialsId();
     final String remoteUrl = URLUtils.safeURL(remoteJenkins.getUrl(), remoteFolder);
     final String recursiveSearch = request.getParameter(Constants.RECURSIVE_PARAM);
+    final RemoteItemFilter filter = filterFrom(request);
 
-    doQueryInternal(null, remoteUrl, CredentialsUtils.getCredentials(credentialId), recursiveSearch, remoteJobs);
+    // folders the site's index listed recently are not requested again, unless the user asks to list everything again
+    final RemoteItemIndex remoteJobs = RestApiClient.discover(SiteClient.of(remoteJenkins), remoteUrl,
+            CredentialsUtils.getCredentials(remoteJenkins.getUrl(), credentialId), isRecursive(recursiveSearch), filter,
+            shouldRefresh(request.getParameter(Constants.REFRESH_PARAM)));
 
     new ForwardToView(this, "index")
             .with("step1", "true")
-            .with("remoteJenkins", remoteJenkins.getName() + "-" + remoteJenkins.getUrl() + "-" + remoteJenkins.getDefaultCredentialsId())
-            .with("remoteJobs", remoteJobs)
+            .with("remoteJenkins", siteKey(remoteJenkins))
+            .with("remoteJobCount", remoteJobs.size())
             .with("remoteFolder", remoteFolder)
             .with("recursiveSearch", recursiveSearch)
-            .with("remoteJobsAvailable", remoteJobs.size()>0)
+            .with("filter", filter)
+            .with("remoteJobsAvailable", !remoteJobs.isEmpty())
             .generateResponse(request, response, this);
   }
 
+  /**
+   * One page of the remote items found by the last query, as JSON, so that the browser only renders what is shown.
+   * <p>
+   * Without {@code parent} the top level items are listed, or with a {@code filter} every item found so far whose full
+   * name contains it. With {@code parent} the content of that folder is listed; when the query did not search into
+   * folders, it is fetched from the remote the first time the folder is opened.
+   */
+  @Restricted(NoExternalUse.class)
+  @POST
+  public void doBrowse(@QueryParameter final String remoteJenkins, @QueryParameter final String remoteFolder,
+                       @QueryParameter final String recursiveSearch, @QueryParameter final String parent,
+                       @QueryParameter final String filter, @QueryParameter final int offset,
+                       @QueryParameter final int limit, final StaplerRequest2 request,
+                       final StaplerResponse2 response) throws IOException {
 
-  private void doImportInternal(String jobUrl, String localPath,
-                                String credentialId,
-                                boolean installPlugins,
-                                boolean update,
-                                SortedSet<RemoteItem> remoteJobs,
-                                SortedMap<RemoteItem, RemoteItemImportStatus> remoteJobsImportStatus) throws IOException {
-    final RemoteItem remoteJob = RemoteItemUtils.getRemoteJob(remoteJobs, jobUrl);
-    if (remoteJob != null) {
-      if (!remoteJobsImportStatus.containsKey(remoteJob)) {
-        remoteJobsImportStatus.put(remoteJob, new RemoteItemImportStatus(remoteJob));
-      }
+    Jenkins.get().checkPermission(JOB_IMPORT);
 
-      // ---
-
-      if (!update && StringUtils.isNotEmpty(localPath) && Jenkins.get().getItemByFullName(localPath + remoteJob.getName()) != null) {
-        remoteJobsImportStatus.get(remoteJob).setStatus(MessagesUtils.formatFailedDuplicateJobName());
-      } else if (!update && StringUtils.isEmpty(localPath) && Jenkins.get().getItem(remoteJob.getName()) != null) {
-        remoteJobsImportStatus.get(remoteJob).setStatus(MessagesUtils.formatFailedDuplicateJobName());
-      } else {
-        InputStream inputStream = null;
-
-        NullSafeCredentials credentials = CredentialsUtils.getCredentials(credentialId);
-
-        try {
-          inputStream = URLUtils.fetchUrl(remoteJob.getUrl() + "/config.xml", credentials.username, credentials.password);
-
-          final Item newItem;
-          if (StringUtils.isNotEmpty(localPath) && !StringUtils.equals("/", localPath.trim())) {
-            String fullName = localPath.endsWith("/") ? localPath + remoteJob.getFullName() : localPath + "/" + remoteJob.getFullName();
-            Item currentItem = Jenkins.get().getItemByFullName(localPath);
-            if (update && currentItem instanceof AbstractItem) {
-              ((AbstractItem)currentItem).updateByXml((Source)new StreamSource(inputStream));
-              newItem = currentItem;
-            } else {
-              newItem = Jenkins.get().getItemByFullName(localPath, com.cloudbees.hudson.plugins.folder.Folder.class).
-                      createProjectFromXML(remoteJob.getFullName(), inputStream);
-            }
-          } else {
-            Item currentItem = Jenkins.get().getItemByFullName(remoteJob.getFullName());
-            if (update && currentItem instanceof AbstractItem) {
-              ((AbstractItem)currentItem).updateByXml((Source)new StreamSource(inputStream));
-              newItem = currentItem;
-            } else {
-              newItem = Jenkins.get().
-                      createProjectFromXML(remoteJob.getFullName(), inputStream);
-            }
-          }
-
-          if (newItem != null) {
-
-            if (installPlugins ) {
-              Jenkins instance = Jenkins.get();
-              instance.getAuthorizationStrategy().getACL(instance).checkPermission(Jenkins.ADMINISTER);
-              PluginManager.createDefault(Jenkins.get()).prevalidateConfig(
-                      URLUtils.fetchUrl(remoteJob.getUrl() + "/config.xml", credentials.username, credentials.password));
-            }
-
-            newItem.save();
-          }
-
-          remoteJobsImportStatus.get(remoteJob).setStatus(MessagesUtils.formatSuccess());
-
-          if (remoteJob.isFolder() && ((RemoteFolder)remoteJob).hasChildren()) {
-            for (RemoteItem childJob : ((RemoteFolder)remoteJob).getChildren()) {
-              doImportInternal(childJob.getUrl(), newItem.getFullName(), credentialId, installPlugins, update, remoteJobs, remoteJobsImportStatus);
-            }
-          }
-        } catch (final Exception e) {
-          LOG.warning("Job Import Failed: " + e.getMessage());
-          if (LOG.isLoggable(Level.INFO)) {
-            LOG.log(Level.INFO, e.getMessage(), e);
-          }
-          remoteJobsImportStatus.get(remoteJob).setStatus(MessagesUtils.formatFailedException(e));
-
-          try {
-            TopLevelItem created = Jenkins.get().getItem(remoteJob.getName());
-            if (created != null) {
-              created.delete();
-            }
-          }
-          catch (final InterruptedException e2) {
-            // do nothing
-          }
-        } finally {
-          IOUtils.closeQuietly(inputStream);
+    final JenkinsSite site = findSite(remoteJenkins);
+    final SiteClient client = SiteClient.of(site);
+    final NullSafeCredentials credentials = CredentialsUtils.getCredentials(site.getUrl(), site.getDefaultCredentialsId());
+    final boolean recursive = isRecursive(recursiveSearch);
+    final RemoteItemFilter itemFilter = filterFrom(request);
+    final RemoteItemIndex index = RestApiClient.discover(client,
+            URLUtils.safeURL(site.getUrl(), StringUtils.defaultString(remoteFolder)), credentials, recursive, itemFilter, false);
+
+    final List<RemoteItem> items;
+    if (StringUtils.isNotBlank(parent)) {
+      final RemoteItem item = index.getByUrl(parent);
+      if (!(item instanceof RemoteFolder)) {
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        return;
+      }
+      final RemoteFolder folder = (RemoteFolder) item;
+      synchronized (folder) {
+        if (!recursive && !folder.hasChildren()) {
+          index.addAll(RestApiClient.getRemoteItems(client, folder, folder.getUrl(), credentials, false, itemFilter));
+        }
+      }
+      items = folder.getChildren();
+    } else if (StringUtils.isNotBlank(filter)) {
+      items = new ArrayList<>();
+      for (RemoteItem item : index.getAllItems()) {
+        if (StringUtils.containsIgnoreCase(item.getFullName(), filter.trim())) {
+          items.add(item);
         }
       }
+      items.sort(null);
+    } else {
+      items = index.getRoots();
+    }
+
+    final int from = Math.min(Math.max(0, offset), items.size());
+    final int pageSize = limit <= 0 ? BROWSE_PAGE_SIZE : Math.min(limit, BROWSE_MAX_PAGE_SIZE);
+    final int to = Math.min(items.size(), from + pageSize);
+
+    final JSONArray page = new JSONArray();
+    for (RemoteItem item : items.subList(from, to)) {
+      final JSONObject json = new JSONObject();
+      json.put("name", item.getName());
+      json.put("fullName", item.getFullName());
+      json.put("url", item.getUrl());
+      json.put("description", StringUtils.defaultString(item.getDescription()));
+      json.put("folder", item.isFolder());
+      page.add(json);
+    }
+
+    final JSONObject result = new JSONObject();
+    result.put("total", items.size());
+    result.put("offset", from);
+    result.put("items", page);
+
+    response.setContentType("application/json;charset=UTF-8");
+    response.setHeader("Cache-Control", "no-cache");
+    response.getWriter().print(result.toString());
+  }
+
+  /**
+   * @return What the imports of every site spent their time on, shown on the {@code stats} page.
+   */
+  @Restricted(NoExternalUse.class)
+  public SortedMap<String, Map<ImportMetrics.Operation, OperationStats>> getStats() {
+    Jenkins.get().checkPermission(JOB_IMPORT);
+    return ImportMetrics.getSites();
+  }
+
+  @Restricted(NoExternalUse.class)
+  public String formatMillis(final double millis) {
+    return String.format(Locale.ENGLISH, "%.1f", millis);
+  }
+
+  private static JenkinsSite findSite(final String key) {
+    for (JenkinsSite js : JobImportGlobalConfig.get().getSites()) {
+      if (siteKey(js).equals(key)) {
+        return js;
+      }
     }
+    return new JenkinsSite("", "");
+  }
+
+  private static String siteKey(final JenkinsSite site) {
+    return site.getName() + "-" + site.getUrl() + "-" + site.getDefaultCredentialsId();
   }
 
-  private void doQueryInternal(RemoteFolder parent, String url, NullSafeCredentials credentials, String recursiveSearch, SortedSet<RemoteItem> remoteJobs) {
-    remoteJobs.addAll(RestApiClient.getRemoteItems(parent, url, credentials, isRecursive(recursiveSearch)));
+  /**
+   * @return The filter the query was made with; its fields are passed along to the browser and the import.
+   */
+  private static RemoteItemFilter filterFrom(final StaplerRequest2 request) {
+    try {
+      return new RemoteItemFilter(request.getParameter(Constants.INCLUDE_FILTER_PARAM),
+              request.getParameter(Constants.EXCLUDE_FILTER_PARAM),
+              StringUtils.equals("on", request.getParameter(Constants.REGEX_FILTER_PARAM)),
+              request.getParameter(Constants.INCLUDE_CLASSES_PARAM),
+              request.getParameter(Constants.EXCLUDE_CLASSES_PARAM));
+    } catch (PatternSyntaxException e) {
+      throw new Failure(Messages.Job_Import_Plugin_Query_InvalidFilter(e.getPattern(), e.getDescription()));
+    }
   }
 
   private boolean isRecursive(String param) {
@@ -287,6 +493,15 @@ public final class JobImportAction implements RootAction, Describable<JobImportA
   private boolean shouldUpdate(String param) {
     return StringUtils.equals("on", param);
   }
+  private boolean shouldRefresh(String param) {
+    return StringUtils.equals("on", param);
+  }
+  private boolean shouldSync(String param) {
+    return StringUtils.equals("on", param);
+  }
+  private boolean isAtomic(String param) {
+    return StringUtils.equals("on", param);
+  }
 
   public String getRootUrl() {
       return Jenkins.get().getRootUrl();
@@ -341,7 +556,7 @@ public final class JobImportAction implements RootAction, Describable<JobImportA
         return new StandardListBoxModel();
       }
       final ListBoxModel listBoxModel = new ListBoxModel();
-      JobImportGlobalConfig.get().getSites().stream().forEach(s -> listBoxModel.add(s.getName(), s.getName() + "-" + s.getUrl() + "-" + s.getDefaultCredentialsId()));
+      JobImportGlobalConfig.get().getSites().stream().forEach(s -> listBoxModel.add(s.getName(), siteKey(s)));
       return listBoxModel;
     }
   }
@@ -5,12 +5,16 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import hudson.Extension;
+import hudson.model.Descriptor;
 import hudson.security.ACL;
 import hudson.util.ListBoxModel;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
+import org.jenkins.ci.plugins.jobimport.client.SiteClient;
 import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RewriteRule;
+import org.jenkins.ci.plugins.jobimport.utils.ConfigRewriter;
 import org.kohsuke.stapler.StaplerRequest2;
 
 import java.util.ArrayList;
@@ -21,6 +25,7 @@ import java.util.List;
 public class JobImportGlobalConfig extends GlobalConfiguration {
 
     private List<JenkinsSite> sites = new ArrayList<>();
+    private List<RewriteRule> rewriteRules = new ArrayList<>();
 
     public JobImportGlobalConfig() {
         load();
@@ -31,8 +36,18 @@ public class JobImportGlobalConfig extends GlobalConfiguration {
     }
 
     @Override
-    public boolean configure(final StaplerRequest2 req, final JSONObject formData) {
-        setSites(req.bindJSONToList(JenkinsSite.class, formData.get("sites")));
+    public boolean configure(final StaplerRequest2 req, final JSONObject formData) throws Descriptor.FormException {
+        final List<RewriteRule> rules = req.bindJSONToList(RewriteRule.class, formData.get("rewriteRules"));
+        try {
+            ConfigRewriter.of(rules);
+        } catch (IllegalArgumentException e) {
+            throw new Descriptor.FormException(e.getMessage(), "rewriteRules");
+        }
+        // both lists are written with a single save
+        rewriteRules = rules;
+        sites = req.bindJSONToList(JenkinsSite.class, formData.get("sites"));
+        save();
+        SiteClient.retain(sites);
         return true;
     }
 
@@ -43,6 +58,20 @@ public class JobImportGlobalConfig extends GlobalConfiguration {
     public void setSites(final List<JenkinsSite> sites) {
         this.sites = sites;
         save();
+        SiteClient.retain(sites);
+    }
+
+    /**
+     * @return The edits applied to every imported {@code config.xml}, in order.
+     */
+    public List<RewriteRule> getRewriteRules() {
+        // configurations saved before rewrite rules existed are loaded without them
+        return rewriteRules == null ? Collections.emptyList() : rewriteRules;
+    }
+
+    public void setRewriteRules(final List<RewriteRule> rewriteRules) {
+        this.rewriteRules = rewriteRules;
+        save();
     }
 
 }
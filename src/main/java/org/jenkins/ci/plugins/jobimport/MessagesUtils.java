@@ -35,6 +35,34 @@ public final class MessagesUtils {
     return Messages.Job_Import_Plugin_Import_Failed_Duplicate();
   }
 
+  public static String formatSyncNew() {
+    return Messages.Job_Import_Plugin_Import_Sync_New();
+  }
+
+  public static String formatSyncChanged() {
+    return Messages.Job_Import_Plugin_Import_Sync_Changed();
+  }
+
+  public static String formatSyncUnchanged() {
+    return Messages.Job_Import_Plugin_Import_Sync_Unchanged();
+  }
+
+  public static String formatFailedParentNotImported() {
+    return Messages.Job_Import_Plugin_Import_Failed_ParentNotImported();
+  }
+
+  public static String formatFailedRolledBack() {
+    return Messages.Job_Import_Plugin_Import_Failed_RolledBack();
+  }
+
+  public static String formatFailedNoRemoteItem() {
+    return Messages.Job_Import_Plugin_Import_Failed_NoRemoteItem();
+  }
+
+  public static String formatFailedNotModified() {
+    return Messages.Job_Import_Plugin_Import_Failed_NotModified();
+  }
+
   public static String formatFailedException(final Exception e) {
     return formatFailedException(e.getMessage());
   }
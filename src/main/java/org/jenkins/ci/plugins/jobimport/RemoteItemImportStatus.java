@@ -31,8 +31,21 @@ import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
  * @since 1.0
  */
 public final class RemoteItemImportStatus implements Comparable<RemoteItemImportStatus> {
-  private RemoteItem remoteJob;
-  private String    status;
+
+  /**
+   * What an import did to the local counterpart of a remote item.
+   */
+  public enum Outcome {
+    NEW, CHANGED, UNCHANGED
+  }
+
+  // not kept in the import journal, which only records what identifies the item
+  private transient RemoteItem remoteJob;
+  private String remoteUrl;
+  private String remoteFullName;
+  private volatile String localFullName;
+  private volatile String status;
+  private volatile Outcome outcome;
 
   public RemoteItemImportStatus() {
     this((RemoteItem) null, (String) null);
@@ -44,7 +57,7 @@ public final class RemoteItemImportStatus implements Comparable<RemoteItemImport
 
   public RemoteItemImportStatus(final RemoteItem remoteJob, final String status) {
     super();
-    this.remoteJob = remoteJob;
+    setRemoteJob(remoteJob);
     this.status = status;
   }
 
@@ -54,6 +67,29 @@ public final class RemoteItemImportStatus implements Comparable<RemoteItemImport
 
   public void setRemoteJob(final RemoteItem remoteJob) {
     this.remoteJob = remoteJob;
+    if (remoteJob != null) {
+      this.remoteUrl = remoteJob.getUrl();
+      this.remoteFullName = remoteJob.getFullName();
+    }
+  }
+
+  public String getRemoteUrl() {
+    return remoteUrl;
+  }
+
+  public String getRemoteFullName() {
+    return remoteFullName;
+  }
+
+  /**
+   * @return The full name of the local item imported from the remote one, {@code null} until it was imported.
+   */
+  public String getLocalFullName() {
+    return localFullName;
+  }
+
+  public void setLocalFullName(final String localFullName) {
+    this.localFullName = localFullName;
   }
 
   public String getStatus() {
@@ -64,6 +100,25 @@ public final class RemoteItemImportStatus implements Comparable<RemoteItemImport
     this.status = status;
   }
 
+  public void setStatus(final String status, final Outcome outcome) {
+    this.outcome = outcome;
+    this.status = status;
+  }
+
+  /**
+   * @return {@code null} until the item was imported, and when it failed.
+   */
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * @return Whether the item was imported, or found unchanged, and does not need to be imported again.
+   */
+  public boolean isDone() {
+    return outcome != null;
+  }
+
   public int compareTo(final RemoteItemImportStatus other) {
     if (this == other) {
       return 0;
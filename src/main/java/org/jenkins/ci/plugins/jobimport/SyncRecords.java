@@ -0,0 +1,110 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import hudson.BulkChange;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * What the last sync imported from each remote {@code config.xml} into each local item, so that the next one only
+ * imports what changed. The same remote item synced to another destination is tracked on its own.
+ */
+public final class SyncRecords implements Saveable {
+
+  private static final Logger LOG = Logger.getLogger(SyncRecords.class.getName());
+
+  private static SyncRecords instance;
+
+  // remote config.xml URL and local full name -> record
+  private final Map<String, Record> records = new HashMap<>();
+
+  public static synchronized SyncRecords get() {
+    if (instance == null) {
+      instance = new SyncRecords();
+      final XmlFile file = getConfigFile();
+      if (file.exists()) {
+        try {
+          file.unmarshal(instance);
+        } catch (IOException e) {
+          LOG.log(Level.WARNING, "Failed to load " + file, e);
+        }
+      }
+    }
+    return instance;
+  }
+
+  private static XmlFile getConfigFile() {
+    return new XmlFile(Jenkins.XSTREAM2, new File(Jenkins.get().getRootDir(), SyncRecords.class.getName() + ".xml"));
+  }
+
+  /**
+   * @return What the last sync of a remote item to the local item {@code localFullName} imported, or {@code null}.
+   */
+  public synchronized Record get(String remoteUrl, String localFullName) {
+    return records.get(key(remoteUrl, localFullName));
+  }
+
+  public synchronized void put(String remoteUrl, Record record) {
+    records.put(key(remoteUrl, record.getLocalFullName()), record);
+  }
+
+  private static String key(String remoteUrl, String localFullName) {
+    // URLs hold no spaces
+    return StringUtils.removeEnd(StringUtils.trimToEmpty(remoteUrl), "/") + ' ' + localFullName;
+  }
+
+  @Override
+  public synchronized void save() throws IOException {
+    if (BulkChange.contains(this)) {
+      return;
+    }
+    getConfigFile().write(this);
+    SaveableListener.fireOnChange(this, getConfigFile());
+  }
+
+  public static final class Record {
+    private final String localFullName;
+    private final String sha256;
+    private final String etag;
+    private final String lastModified;
+    // the rewrite rules the configuration was imported with, see ConfigRewriter#getFingerprint
+    private final String rules;
+
+    public Record(String localFullName, String sha256, String etag, String lastModified, String rules) {
+      this.localFullName = localFullName;
+      this.sha256 = sha256;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.rules = rules;
+    }
+
+    public String getLocalFullName() {
+      return localFullName;
+    }
+
+    public String getSha256() {
+      return sha256;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+
+    public String getLastModified() {
+      return lastModified;
+    }
+
+    public String getRules() {
+      return rules;
+    }
+  }
+}
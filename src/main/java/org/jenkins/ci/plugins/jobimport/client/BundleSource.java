@@ -0,0 +1,172 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The items of a bundle written by {@link ExportBundle}, read from local disk. Every {@code config.xml} is read
+ * straight from its zip entry when the import gets to it; nothing is unpacked.
+ */
+public final class BundleSource implements ImportSource {
+
+    private static final Logger LOG = Logger.getLogger(BundleSource.class.getName());
+
+    private final Path file;
+    private final ZipFile zip;
+    private final RemoteItemFilter filter;
+    // every item of the bundle, parents first, and the entry holding its config.xml
+    private final Map<RemoteItem, String> entries;
+    private RemoteItemIndex index;
+
+    private BundleSource(Path file, ZipFile zip, RemoteItemFilter filter, Map<RemoteItem, String> entries) {
+        this.file = file;
+        this.zip = zip;
+        this.filter = filter;
+        this.entries = entries;
+    }
+
+    /**
+     * @param filter Which of the items in the bundle to offer
+     * @throws IOException If the file is not a bundle
+     */
+    public static BundleSource open(Path file, RemoteItemFilter filter) throws IOException {
+        final ZipFile zip = new ZipFile(file.toFile());
+        try {
+            return new BundleSource(file, zip, filter, readManifest(zip));
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    private static Map<RemoteItem, String> readManifest(ZipFile zip) throws IOException {
+        final ZipEntry entry = zip.getEntry(ExportBundle.MANIFEST);
+        if (entry == null) {
+            throw new IOException(zip.getName() + " is not an export bundle, it has no " + ExportBundle.MANIFEST);
+        }
+        final JSONObject manifest;
+        try (InputStream in = zip.getInputStream(entry)) {
+            manifest = JSONObject.fromObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Invalid manifest in " + zip.getName() + ": " + e.getMessage(), e);
+        }
+        if (manifest.optInt("version") != ExportBundle.VERSION) {
+            throw new IOException("Unsupported bundle version " + manifest.opt("version") + " in " + zip.getName());
+        }
+
+        final Map<RemoteItem, String> entries = new LinkedHashMap<>();
+        final Map<String, RemoteFolder> folders = new HashMap<>();
+        final JSONArray items = manifest.getJSONArray("items");
+        for (int i = 0; i < items.size(); i++) {
+            final JSONObject item = items.getJSONObject(i);
+            final String fullName = item.getString("fullName");
+            final int slash = fullName.lastIndexOf(Constants.SEPARATOR);
+            // an item exported without its folder is a top level item of the bundle
+            final RemoteFolder parent = slash < 0 ? null : folders.get(fullName.substring(0, slash));
+            final String name = item.getString("name");
+            final String impl = item.optString("class", null);
+            final String url = item.getString("url");
+            final String description = item.optString("description", null);
+            final RemoteItem remoteItem;
+            if (item.optBoolean("folder")) {
+                final RemoteFolder folder = new RemoteFolder(name, impl, url, description, parent);
+                folders.put(fullName, folder);
+                remoteItem = folder;
+            } else {
+                remoteItem = new RemoteJob(name, impl, url, description, parent);
+            }
+            entries.put(remoteItem, item.getString("path"));
+        }
+        return entries;
+    }
+
+    @Override
+    public String getUrl() {
+        return file.toUri().toString();
+    }
+
+    /**
+     * @return The items of the bundle the filter accepts. The bundle is only read once.
+     */
+    @Override
+    public synchronized RemoteItemIndex discover(boolean refresh) {
+        if (index == null) {
+            final FolderListing listing = new FolderListing(null);
+            listing.items.addAll(entries.keySet());
+            listing.complete = true;
+            final FolderListing filtered = RestApiClient.filter(listing, filter);
+            for (RemoteItem item : filtered.items) {
+                if (item.hasParent()) {
+                    item.getParent().addChild(item);
+                }
+            }
+            index = new RemoteItemIndex(filtered.items);
+        }
+        return index;
+    }
+
+    @Override
+    public ConfigSource configs(List<? extends RemoteItem> items, Function<? super RemoteItem, ConfigDownload> previous) {
+        return new ConfigSource() {
+            private int next;
+
+            @Override
+            public ConfigDownload next() throws IOException {
+                final RemoteItem item = items.get(next++);
+                final String path = entries.get(item);
+                final ZipEntry entry = path == null ? null : zip.getEntry(path);
+                if (entry == null) {
+                    throw new IOException("No configuration of " + item.getFullName() + " in " + zip.getName());
+                }
+                try (ImportMetrics.Sample sample = ImportMetrics.start(getUrl(), ImportMetrics.Operation.DOWNLOAD);
+                     InputStream in = zip.getInputStream(entry)) {
+                    final byte[] body = IOUtils.toByteArray(in);
+                    sample.succeeded(body.length);
+                    return new ConfigDownload(body, null, null);
+                }
+            }
+
+            @Override
+            public void skip() {
+                next++;
+            }
+
+            @Override
+            public void close() {
+                // the entries are closed as they are read
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            zip.close();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to close the bundle " + file, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+/**
+ * A downloaded {@code config.xml} with the validators the remote sent along, which later requests can send back to
+ * only get it again when it changed.
+ */
+public final class ConfigDownload {
+
+    private final byte[] body;
+    private final String etag;
+    private final String lastModified;
+
+    /**
+     * @param body The content, {@code null} when the remote answered that it did not change
+     */
+    public ConfigDownload(byte[] body, String etag, String lastModified) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isNotModified() {
+        return body == null;
+    }
+}
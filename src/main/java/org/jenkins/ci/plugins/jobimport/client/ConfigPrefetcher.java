@@ -0,0 +1,100 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.NullSafeCredentials;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Downloads the {@code config.xml} of a list of items concurrently, ahead of a single consumer that takes them in list
+ * order. At most {@link #getWindowSize()} bodies are in flight or buffered at any time.
+ */
+public final class ConfigPrefetcher implements ConfigSource {
+
+    static final int WINDOW_PER_REQUEST = 4;
+
+    private final SiteClient client;
+    private final NullSafeCredentials credentials;
+    private final List<? extends RemoteItem> items;
+    private final Function<? super RemoteItem, ConfigDownload> previous;
+    private final ExecutorService executor;
+    private final Deque<Future<ConfigDownload>> window = new ArrayDeque<>();
+    private final int windowSize;
+    private int submitted;
+
+    public ConfigPrefetcher(SiteClient client, NullSafeCredentials credentials, List<? extends RemoteItem> items) {
+        this(client, credentials, items, item -> null);
+    }
+
+    /**
+     * @param previous The last known version of an item's {@code config.xml}, or {@code null}. Called on the consumer
+     *                 thread, right before the download is started.
+     */
+    public ConfigPrefetcher(SiteClient client, NullSafeCredentials credentials, List<? extends RemoteItem> items,
+                            Function<? super RemoteItem, ConfigDownload> previous) {
+        this.client = client;
+        this.credentials = credentials;
+        this.items = items;
+        this.previous = previous;
+        this.windowSize = client.getMaxConcurrentRequests() * WINDOW_PER_REQUEST;
+        this.executor = Executors.newFixedThreadPool(client.getMaxConcurrentRequests(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Job Import download " + client.getSiteUrl()));
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return The {@code config.xml} of the next item.
+     * @throws IOException If that download failed
+     */
+    @Override
+    public ConfigDownload next() throws IOException, InterruptedException {
+        try {
+            return poll().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Moves past the next item without waiting for its download.
+     */
+    @Override
+    public void skip() {
+        poll().cancel(true);
+    }
+
+    private Future<ConfigDownload> poll() {
+        while (submitted < items.size() && window.size() < windowSize) {
+            final RemoteItem item = items.get(submitted++);
+            final ConfigDownload last = previous.apply(item);
+            window.add(executor.submit(() -> client.download(item.getUrl() + "/config.xml", credentials, last)));
+        }
+        final Future<ConfigDownload> next = window.poll();
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        return next;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The {@code config.xml} of a list of items, taken one after the other in list order.
+ */
+public interface ConfigSource extends Closeable {
+
+    /**
+     * @return The {@code config.xml} of the next item.
+     * @throws IOException If it could not be read
+     */
+    ConfigDownload next() throws IOException, InterruptedException;
+
+    /**
+     * Moves past the next item without reading it.
+     */
+    void skip();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,251 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+import hudson.model.Items;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.ModifiableTopLevelItemGroup;
+import jenkins.util.SystemProperties;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * The items of another controller's {@code JENKINS_HOME}, read from disk while that controller is down: every
+ * directory with a {@code config.xml} below {@code jobs} is an item, and the nested {@code jobs} directories of folders
+ * hold their content.
+ * <p>
+ * The folders are walked concurrently. Only the root element and description of every {@code config.xml} are read to
+ * list the items; the whole file is read when the import gets to it.
+ */
+public final class DirectorySource implements ImportSource {
+
+    static final int WALK_THREADS = SystemProperties.getInteger(DirectorySource.class.getName() + ".walkThreads",
+            Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+    private static final String CONFIG_XML = "config.xml";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Path jobs;
+    private final RemoteItemFilter filter;
+    // every listed item -> the directory holding its config.xml
+    private final Map<RemoteItem, Path> directories = new ConcurrentHashMap<>();
+    private RemoteItemIndex index;
+
+    private DirectorySource(Path jobs, RemoteItemFilter filter) {
+        this.jobs = jobs;
+        this.filter = filter;
+    }
+
+    /**
+     * @param path   A {@code JENKINS_HOME}, or its {@code jobs} directory
+     * @param filter Which of the items to offer; the content of rejected folders is not walked
+     */
+    public static DirectorySource open(Path path, RemoteItemFilter filter) throws IOException {
+        if (!Files.isDirectory(path)) {
+            throw new IOException(path + " is not a directory");
+        }
+        final Path jobs = path.resolve(Constants.JOBS_SEPARATOR);
+        return new DirectorySource(Files.isDirectory(jobs) ? jobs : path, filter);
+    }
+
+    @Override
+    public String getUrl() {
+        return jobs.toUri().toString();
+    }
+
+    /**
+     * @return The items the filter accepts. The directories are only walked once.
+     */
+    @Override
+    public synchronized RemoteItemIndex discover(boolean refresh) throws IOException {
+        if (index == null) {
+            index = new RemoteItemIndex(walk());
+        }
+        return index;
+    }
+
+    private List<RemoteItem> walk() throws IOException {
+        final List<RemoteItem> items = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(WALK_THREADS,
+                new NamingThreadFactory(new DaemonThreadFactory(), "Job Import directory walk " + jobs));
+        try {
+            final CompletionService<FolderListing> listings = new ExecutorCompletionService<>(executor);
+            listings.submit(() -> list(null, jobs));
+            int pending = 1;
+
+            while (pending > 0) {
+                final FolderListing listing = RestApiClient.filter(listings.take().get(), filter);
+                pending--;
+
+                for (RemoteItem item : listing.items) {
+                    if (item.hasParent()) {
+                        item.getParent().addChild(item);
+                    }
+                    items.add(item);
+                }
+                for (RemoteFolder folder : listing.truncated) {
+                    listings.submit(() -> list(folder, directories.get(folder).resolve(Constants.JOBS_SEPARATOR)));
+                    pending++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while walking " + jobs, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to walk " + jobs, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return items;
+    }
+
+    /**
+     * Lists the items in one {@code jobs} directory. Every folder is reported as truncated, so that its content is
+     * walked next unless the filter rejects it.
+     */
+    private FolderListing list(RemoteFolder parent, Path dir) throws IOException, XMLStreamException {
+        final FolderListing listing = new FolderListing(parent);
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(dir, Files::isDirectory)) {
+                for (Path child : children) {
+                    final Path config = child.resolve(CONFIG_XML);
+                    if (!Files.isRegularFile(config)) {
+                        continue;
+                    }
+                    final RemoteItem item = read(parent, child, config);
+                    directories.put(item, child);
+                    listing.items.add(item);
+                    if (item.isFolder()) {
+                        listing.truncated.add((RemoteFolder) item);
+                    }
+                }
+            }
+        }
+        listing.complete = true;
+        return listing;
+    }
+
+    /**
+     * Makes an item of a directory from the root element of its {@code config.xml}, which names the item's class, and
+     * its description.
+     */
+    private static RemoteItem read(RemoteFolder parent, Path dir, Path config) throws IOException, XMLStreamException {
+        String root = null;
+        String description = null;
+        try (InputStream in = Files.newInputStream(config)) {
+            final XMLStreamReader xml = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                while (xml.hasNext() && description == null) {
+                    final int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (depth == 1) {
+                            root = xml.getLocalName();
+                        } else if (depth == 2 && "description".equals(xml.getLocalName())) {
+                            description = xml.getElementText();
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        }
+
+        final Class<?> type = resolve(root);
+        final String impl = type != null ? type.getName() : root;
+        final String name = dir.getFileName().toString();
+        final String url = dir.toUri().toString();
+        // computed folders like multibranch projects keep generated items in jobs too, those are not imported; an item
+        // whose class is unknown here is imported on its own, without looking into it
+        if (type != null && ModifiableTopLevelItemGroup.class.isAssignableFrom(type)) {
+            return new RemoteFolder(name, impl, url, description, parent);
+        }
+        return new RemoteJob(name, impl, url, description, parent);
+    }
+
+    /**
+     * @return The class a root element stands for, like {@code hudson.model.FreeStyleProject} for {@code project}, or
+     * {@code null} when the plugin defining it is not installed here.
+     */
+    private static Class<?> resolve(String element) {
+        if (element == null) {
+            return null;
+        }
+        try {
+            return Items.XSTREAM2.getMapper().realClass(element);
+        } catch (CannotResolveClassException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public ConfigSource configs(List<? extends RemoteItem> items, Function<? super RemoteItem, ConfigDownload> previous) {
+        return new ConfigSource() {
+            private int next;
+
+            @Override
+            public ConfigDownload next() throws IOException {
+                final RemoteItem item = items.get(next++);
+                final Path dir = directories.get(item);
+                if (dir == null) {
+                    throw new IOException("No configuration of " + item.getFullName() + " in " + jobs);
+                }
+                try (ImportMetrics.Sample sample = ImportMetrics.start(getUrl(), ImportMetrics.Operation.DOWNLOAD)) {
+                    final byte[] body = Files.readAllBytes(dir.resolve(CONFIG_XML));
+                    sample.succeeded(body.length);
+                    return new ConfigDownload(body, null, null);
+                }
+            }
+
+            @Override
+            public void skip() {
+                next++;
+            }
+
+            @Override
+            public void close() {
+                // every file is closed as soon as it was read
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing stays open between reads
+    }
+}
@@ -0,0 +1,97 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import jenkins.util.SystemProperties;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remote trees discovered on one site, so that an import can reuse the listing the user just queried instead of
+ * crawling the site again. Entries expire after {@link #TTL_MILLIS} and the least recently used ones are evicted past
+ * {@link #MAX_ENTRIES}.
+ */
+final class DiscoveryCache {
+
+    static final long TTL_MILLIS = SystemProperties.getLong(DiscoveryCache.class.getName() + ".ttlMillis",
+            TimeUnit.MINUTES.toMillis(10));
+    static final int MAX_ENTRIES = SystemProperties.getInteger(DiscoveryCache.class.getName() + ".maxEntries", 16);
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    synchronized RemoteItemIndex get(Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.createdAt > TTL_MILLIS) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.index;
+    }
+
+    synchronized void put(Key key, RemoteItemIndex index) {
+        entries.put(key, new Entry(index));
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * What a listing depends on: where it starts, how deep it goes, what it keeps, and who is asking with which remote
+     * account.
+     */
+    static final class Key {
+        private final String url;
+        private final boolean recursive;
+        private final RemoteItemFilter filter;
+        private final String user;
+        private final String remoteUser;
+
+        Key(String url, boolean recursive, RemoteItemFilter filter, String user, String remoteUser) {
+            this.url = url;
+            this.recursive = recursive;
+            this.filter = filter;
+            this.user = user;
+            this.remoteUser = remoteUser;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return recursive == key.recursive && Objects.equals(url, key.url) && Objects.equals(filter, key.filter)
+                    && Objects.equals(user, key.user)
+                    && Objects.equals(remoteUser, key.remoteUser);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, recursive, filter, user, remoteUser);
+        }
+    }
+
+    private static final class Entry {
+        final RemoteItemIndex index;
+        final long createdAt = System.currentTimeMillis();
+
+        Entry(RemoteItemIndex index) {
+            this.index = index;
+        }
+    }
+}
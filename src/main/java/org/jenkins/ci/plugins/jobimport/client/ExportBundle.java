@@ -0,0 +1,110 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes items as a zip bundle that {@link BundleSource} imports, for targets that cannot reach the source site.
+ * <p>
+ * The bundle lays out the {@code config.xml} of every item like {@code JENKINS_HOME} does, e.g.
+ * {@code jobs/team/jobs/build/config.xml}, and ends with a {@value #MANIFEST} describing every exported item as the
+ * site listed it, and the items that could not be exported.
+ */
+public final class ExportBundle {
+
+    static final String MANIFEST = "manifest.json";
+    static final int VERSION = 1;
+
+    private ExportBundle() {
+    }
+
+    /**
+     * Streams the items to {@code out} while their {@code config.xml} are read from the source. The content of a folder
+     * that could not be exported is left out as well.
+     *
+     * @param items The items to export, every folder before its content
+     * @return The number of items that could not be exported.
+     */
+    public static int write(ImportSource source, List<? extends RemoteItem> items, OutputStream out)
+            throws IOException, InterruptedException {
+        final ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        final JSONArray exported = new JSONArray();
+        final JSONArray failed = new JSONArray();
+        final Set<RemoteItem> missing = new HashSet<>();
+
+        try (ConfigSource configs = source.configs(items, item -> null)) {
+            for (RemoteItem item : items) {
+                if (item.hasParent() && missing.contains(item.getParent())) {
+                    configs.skip();
+                    missing.add(item);
+                    failed.add(failure(item, "Parent folder was not exported"));
+                    continue;
+                }
+                final ConfigDownload config;
+                try {
+                    config = configs.next();
+                } catch (IOException e) {
+                    missing.add(item);
+                    failed.add(failure(item, e.getMessage()));
+                    continue;
+                }
+                final String path = entryName(item);
+                zip.putNextEntry(new ZipEntry(path));
+                zip.write(config.getBody());
+                zip.closeEntry();
+                exported.add(toJson(item, path));
+            }
+        }
+
+        final JSONObject manifest = new JSONObject();
+        manifest.put("version", VERSION);
+        manifest.put("source", source.getUrl());
+        manifest.put("exportedAt", System.currentTimeMillis());
+        manifest.put("items", exported);
+        manifest.put("failed", failed);
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        zip.write(manifest.toString(2).getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        zip.finish();
+        return failed.size();
+    }
+
+    /**
+     * @return Where the {@code config.xml} of the item goes, e.g. {@code jobs/team/jobs/build/config.xml}.
+     */
+    static String entryName(RemoteItem item) {
+        return Constants.JOBS_SEPARATOR_S + String.join(Constants.JOBS_SEPARATOR_F, item.getFullName().split(Constants.SEPARATOR))
+                + Constants.SEPARATOR + "config.xml";
+    }
+
+    private static JSONObject toJson(RemoteItem item, String path) {
+        final JSONObject json = new JSONObject();
+        json.put("name", item.getName());
+        json.put("fullName", item.getFullName());
+        json.put("class", item.getImpl());
+        json.put("url", item.getUrl());
+        json.put("description", item.getDescription());
+        json.put("folder", item.isFolder());
+        json.put("path", path);
+        return json;
+    }
+
+    private static JSONObject failure(RemoteItem item, String message) {
+        final JSONObject json = new JSONObject();
+        json.put("fullName", item.getFullName());
+        json.put("url", item.getUrl());
+        json.put("error", message);
+        return json;
+    }
+}
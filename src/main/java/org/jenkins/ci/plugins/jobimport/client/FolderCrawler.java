@@ -0,0 +1,82 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Recursively lists a remote folder, fetching sub folder listings concurrently.
+ * <p>
+ * Each request asks for the site's tree depth, and only the folders cut off at that depth get a follow-up request.
+ * Only the HTTP round-trip and parsing run on the worker threads. The calling thread links every listed item to its
+ * parent, so the {@link RemoteFolder} tree is built exactly as a sequential depth-first walk would build it.
+ * <p>
+ * Listings are filtered as they come in, so folders the filter rejects are never requested.
+ */
+final class FolderCrawler {
+
+    private static final Logger LOG = Logger.getLogger(FolderCrawler.class.getName());
+
+    private final SiteClient client;
+    private final CredentialsUtils.NullSafeCredentials credentials;
+    private final RemoteItemFilter filter;
+    // whether folders the site's index knows are requested again
+    private final boolean refresh;
+
+    FolderCrawler(SiteClient client, CredentialsUtils.NullSafeCredentials credentials, RemoteItemFilter filter,
+                  boolean refresh) {
+        this.client = client;
+        this.credentials = credentials;
+        this.filter = filter;
+        this.refresh = refresh;
+    }
+
+    List<RemoteItem> crawl(RemoteFolder root, String url) {
+        final List<RemoteItem> items = new ArrayList<>();
+        final int depth = client.getSite().getTreeDepth();
+        final ExecutorService executor = Executors.newFixedThreadPool(client.getMaxConcurrentRequests(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Job Import crawler " + client.getSiteUrl()));
+        try {
+            final CompletionService<FolderListing> listings = new ExecutorCompletionService<>(executor);
+            listings.submit(() -> RestApiClient.listFolder(client, root, url, credentials, depth, refresh));
+            int pending = 1;
+
+            while (pending > 0) {
+                final FolderListing listing = RestApiClient.filter(listings.take().get(), filter);
+                pending--;
+
+                for (RemoteItem item : listing.items) {
+                    if (item.hasParent()) {
+                        item.getParent().addChild(item);
+                    }
+                    items.add(item);
+                }
+                for (RemoteFolder folder : listing.truncated) {
+                    listings.submit(() -> RestApiClient.listFolder(client, folder, folder.getUrl(), credentials, depth, refresh));
+                    pending++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.log(Level.WARNING, "Interrupted while listing jobs from remote " + url, e);
+        } catch (ExecutionException e) {
+            LOG.log(Level.SEVERE, "Failed to list job from remote " + url, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return items;
+    }
+}
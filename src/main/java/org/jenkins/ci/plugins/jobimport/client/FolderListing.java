@@ -0,0 +1,24 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The result of one listing request: the items found below {@link #parent}, parents first, and the folders whose
+ * content was cut off by the requested tree depth.
+ */
+final class FolderListing {
+
+    final RemoteFolder parent;
+    final List<RemoteItem> items = new ArrayList<>();
+    final List<RemoteFolder> truncated = new ArrayList<>();
+    // false when the listing failed, so that it is not mistaken for an empty folder
+    boolean complete;
+
+    FolderListing(RemoteFolder parent) {
+        this.parent = parent;
+    }
+}
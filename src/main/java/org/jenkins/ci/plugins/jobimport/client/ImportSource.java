@@ -0,0 +1,48 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Where an import takes its items and their {@code config.xml} from: a remote Jenkins, or an export bundle or the
+ * {@code JENKINS_HOME} of another controller on local disk.
+ */
+public interface ImportSource extends Closeable {
+
+    /**
+     * Opens a source on local disk: a {@link DirectorySource} for a directory, a {@link BundleSource} otherwise.
+     */
+    static ImportSource open(Path path, RemoteItemFilter filter) throws IOException {
+        return Files.isDirectory(path) ? DirectorySource.open(path, filter) : BundleSource.open(path, filter);
+    }
+
+    /**
+     * @return The URL of a remote site, or of a file on disk. It identifies the source in journals and statistics.
+     */
+    String getUrl();
+
+    /**
+     * Lists the items to choose from.
+     *
+     * @param refresh Whether a listing cached by an earlier call may not be reused
+     */
+    RemoteItemIndex discover(boolean refresh) throws IOException;
+
+    /**
+     * @param items    The items to read, every folder before its content
+     * @param previous The last known version of an item's {@code config.xml}, or {@code null}, for sources that can
+     *                 skip reading what did not change
+     */
+    ConfigSource configs(List<? extends RemoteItem> items, Function<? super RemoteItem, ConfigDownload> previous);
+
+    @Override
+    void close();
+}
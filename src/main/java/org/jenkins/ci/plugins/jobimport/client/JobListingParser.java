@@ -0,0 +1,138 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Streaming (StAX) parser for {@code api/xml?tree=jobs[...]} listings.
+ * <p>
+ * Top level jobs are turned into {@link org.jenkins.ci.plugins.jobimport.model.RemoteItem}s as soon as their element
+ * closes, so no document tree is built next to the items and parsing is linear. The items themselves are all kept,
+ * so memory still grows with the size of the listing. Remote Jenkins writes the nested {@code jobs} of a folder
+ * before its {@code name} and {@code url}, so the entries of a folder's subtree are only kept until the folder itself
+ * closes.
+ */
+final class JobListingParser {
+
+    static final String FOLDER_CLASS = "com.cloudbees.hudson.plugins.folder.Folder";
+
+    private static final String JOB = "job";
+    private static final String CLASS = "_class";
+    private static final String NAME = "name";
+    private static final String URL = "url";
+    private static final String DESCRIPTION = "description";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private JobListingParser() {
+        throw new UnsupportedOperationException("Cannot instantiate utility class");
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Reads a listing of {@code depth} levels below {@code parent} into {@code listing}, parents first.
+     */
+    static void parse(InputStream content, RemoteFolder parent, int depth, FolderListing listing) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(content);
+        try {
+            final Deque<Entry> open = new ArrayDeque<>();
+            int elementDepth = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    elementDepth++;
+                    String element = reader.getLocalName();
+                    // jobs are direct children of the document element or of another job
+                    int jobDepth = open.isEmpty() ? 2 : open.peek().elementDepth + 1;
+
+                    if (JOB.equals(element) && elementDepth == jobDepth) {
+                        open.push(new Entry(StringUtils.defaultString(reader.getAttributeValue(null, CLASS)), elementDepth));
+                    } else if (!open.isEmpty() && elementDepth == open.peek().elementDepth + 1) {
+                        // getElementText() moves past the end tag of the property
+                        Entry entry = open.peek();
+                        if (NAME.equals(element)) {
+                            entry.name = reader.getElementText();
+                            elementDepth--;
+                        } else if (URL.equals(element)) {
+                            entry.url = reader.getElementText();
+                            elementDepth--;
+                        } else if (DESCRIPTION.equals(element)) {
+                            entry.description = reader.getElementText();
+                            elementDepth--;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (!open.isEmpty() && elementDepth == open.peek().elementDepth) {
+                        Entry entry = open.pop();
+                        if (open.isEmpty()) {
+                            emit(entry, parent, 1, depth, listing);
+                        } else {
+                            open.peek().children().add(entry);
+                        }
+                    }
+                    elementDepth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void emit(Entry entry, RemoteFolder parent, int level, int depth, FolderListing listing) {
+        if (FOLDER_CLASS.equals(entry.impl)) {
+            RemoteFolder folder = new RemoteFolder(entry.name, entry.impl, entry.url, entry.description, parent);
+            listing.items.add(folder);
+            if (level < depth) {
+                if (entry.children != null) {
+                    for (Entry child : entry.children) {
+                        emit(child, folder, level + 1, depth, listing);
+                    }
+                }
+            } else {
+                listing.truncated.add(folder);
+            }
+        } else {
+            listing.items.add(new RemoteJob(entry.name, entry.impl, entry.url, entry.description, parent));
+        }
+    }
+
+    private static final class Entry {
+        final String impl;
+        final int elementDepth;
+        String name;
+        String url;
+        String description;
+        List<Entry> children;
+
+        Entry(String impl, int elementDepth) {
+            this.impl = impl;
+            this.elementDepth = elementDepth;
+        }
+
+        List<Entry> children() {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            return children;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the requests sent to one site. After an idle period up to one second worth of requests may
+ * go out at once; beyond that, callers wait for their turn in the order they asked.
+ * <p>
+ * When the site asks to be left alone for a while, every caller waits until then, whatever the rate.
+ */
+final class RateLimiter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // 0 means no limit
+    private double permitsPerSecond;
+    // negative when callers are already waiting for permits
+    private double permits;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+
+    synchronized void setRate(int permitsPerSecond) {
+        if (permitsPerSecond == this.permitsPerSecond) {
+            return;
+        }
+        refill(System.nanoTime());
+        this.permits = this.permitsPerSecond <= 0 ? permitsPerSecond : Math.min(permits, permitsPerSecond);
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Holds every request back for {@code millis} from now, unless the site is already paused for longer.
+     */
+    synchronized void pause(long millis) {
+        pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Waits until a request may be sent.
+     */
+    void acquire() throws InterruptedException {
+        final long waitNanos;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            long wait = Math.max(0, pausedUntil - now);
+            if (permitsPerSecond > 0) {
+                refill(now);
+                // take the permit now and wait for it to be refilled, so that later callers queue up behind
+                permits -= 1;
+                if (permits < 0) {
+                    wait = Math.max(wait, (long) (-permits / permitsPerSecond * NANOS_PER_SECOND));
+                }
+            }
+            waitNanos = wait;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill(long now) {
+        if (permitsPerSecond > 0) {
+            permits = Math.min(permitsPerSecond, permits + (now - refilledAt) / NANOS_PER_SECOND * permitsPerSecond);
+        }
+        refilledAt = now;
+    }
+}
@@ -1,23 +1,23 @@
 package org.jenkins.ci.plugins.jobimport.client;
 
+import jenkins.model.Jenkins;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.jenkins.ci.plugins.jobimport.metrics.CountingInputStream;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
 import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
 import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
-import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
 import org.jenkins.ci.plugins.jobimport.utils.Constants;
 import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
-import org.jenkins.ci.plugins.jobimport.utils.RemoteItemUtils;
 import org.jenkins.ci.plugins.jobimport.utils.URLUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,56 +25,131 @@ public final class RestApiClient {
 
     private static final Logger LOG = Logger.getLogger(RestApiClient.class.getName());
 
-    public static List<RemoteItem> getRemoteItems(RemoteFolder parent, String url, CredentialsUtils.NullSafeCredentials credentials, boolean recursiveSearch) {
-        List<RemoteItem> items = new ArrayList<>();
-        try {
-            if (StringUtils.isNotEmpty(url)) {
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-                factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-                factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    /**
+     * Lists the items under {@code url} like {@link #getRemoteItems}, reusing the listing the current user got for the
+     * same folder and filter within the last few minutes unless {@code refresh} is set.
+     *
+     * @return The discovered items and their index; shared between the callers that hit the cache.
+     */
+    public static RemoteItemIndex discover(SiteClient client, String url, CredentialsUtils.NullSafeCredentials credentials, boolean recursiveSearch, RemoteItemFilter filter, boolean refresh) {
+        final DiscoveryCache.Key key = new DiscoveryCache.Key(url, recursiveSearch, filter,
+                Jenkins.getAuthentication2().getName(), credentials.username);
+        if (!refresh) {
+            final RemoteItemIndex cached = client.getDiscoveryCache().get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final RemoteItemIndex index = new RemoteItemIndex(getRemoteItems(client, null, url, credentials, recursiveSearch, filter, refresh));
+        // an empty listing is most likely a failed one, do not keep it around
+        if (!index.isEmpty()) {
+            client.getDiscoveryCache().put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Lists the items under {@code url}. With {@code recursiveSearch} the site's tree depth is requested at once, and
+     * the folders cut off at that depth are listed concurrently, bounded by the site's concurrency cap.
+     */
+    public static List<RemoteItem> getRemoteItems(SiteClient client, RemoteFolder parent, String url, CredentialsUtils.NullSafeCredentials credentials, boolean recursiveSearch) {
+        return getRemoteItems(client, parent, url, credentials, recursiveSearch, RemoteItemFilter.ALL);
+    }
 
-                HttpResponse response = URLUtils.getUrl(URLUtils.safeURL(url, Constants.XML_API_QUERY), credentials.username, credentials.password);
-                InputStream content = response.getEntity().getContent();
-                int responseStatusCode = response.getStatusLine().getStatusCode();
-                if (responseStatusCode >= 400) {
-                    LOG.log(Level.SEVERE, "Failed to list job from remote " + url +". Response status code received " + responseStatusCode + ". Content: " + IOUtils.toString(content));
-                } else {
-                    Document doc = factory.newDocumentBuilder().parse(content);
-                    NodeList nl = doc.getElementsByTagName("job");
+    /**
+     * Lists the items under {@code url} that pass {@code filter}. Folders the filter rejects are not listed.
+     */
+    public static List<RemoteItem> getRemoteItems(SiteClient client, RemoteFolder parent, String url, CredentialsUtils.NullSafeCredentials credentials, boolean recursiveSearch, RemoteItemFilter filter) {
+        return getRemoteItems(client, parent, url, credentials, recursiveSearch, filter, false);
+    }
 
-                    for (int i = 0; i < nl.getLength(); i++) {
-                        Element job = (Element) nl.item(i);
-                        String impl = job.getAttribute("_class");
-                        boolean folder = (impl != null &&
-                                "com.cloudbees.hudson.plugins.folder.Folder".equals(impl));
-                        String desc = RemoteItemUtils.text(job, "description");
-                        String jobUrl = RemoteItemUtils.text(job, "url");
-                        String name = RemoteItemUtils.text(job, "name");
+    /**
+     * Lists the items under {@code url} that pass {@code filter}. Folders the filter rejects are not listed.
+     *
+     * @param refresh Whether every folder is requested from the remote, even when the site's index knows it
+     */
+    public static List<RemoteItem> getRemoteItems(SiteClient client, RemoteFolder parent, String url, CredentialsUtils.NullSafeCredentials credentials, boolean recursiveSearch, RemoteItemFilter filter, boolean refresh) {
+        try {
+            if (recursiveSearch) {
+                return new FolderCrawler(client, credentials, filter, refresh).crawl(parent, url);
+            }
+            FolderListing listing = filter(listFolder(client, parent, url, credentials, 1, refresh), filter);
+            if (parent != null) {
+                parent.addChildren(listing.items);
+            }
+            return listing.items;
+        } finally {
+            client.getIndex(credentials).save();
+        }
+    }
 
-                        final RemoteItem item = folder ?
-                                new RemoteFolder(name, impl, jobUrl, desc, parent) :
-                                new RemoteJob(name, impl, jobUrl, desc, parent);
-                        if(parent == null) {
-                            items.add(item);
-                        } else {
-                            parent.getChildren().add(item);
-                            items.add(item);
-                        }
+    /**
+     * Lists {@code depth} levels below one remote folder with a single request, or from the site's index when that
+     * folder was listed recently and {@code refresh} is not set. The returned items point to their parent but are not
+     * added to its children, so that this can safely run on any thread.
+     */
+    static FolderListing listFolder(SiteClient client, RemoteFolder parent, String url, CredentialsUtils.NullSafeCredentials credentials, int depth, boolean refresh) {
+        final SiteIndex index = client.getIndex(credentials);
+        if (!refresh) {
+            final FolderListing indexed = index.listing(parent, url, depth);
+            if (indexed != null) {
+                return indexed;
+            }
+        }
 
-                        if(folder && recursiveSearch) {
-                            items.addAll(getRemoteItems((RemoteFolder) item, jobUrl, credentials, true));
-                        }
+        FolderListing listing = new FolderListing(parent);
+        try {
+            if (StringUtils.isNotEmpty(url)) {
+                try (ImportMetrics.Sample request = ImportMetrics.start(client.getSiteUrl(), ImportMetrics.Operation.DISCOVERY);
+                     CloseableHttpResponse response = client.get(URLUtils.safeURL(url, Constants.xmlApiQuery(depth)), credentials);
+                     CountingInputStream content = new CountingInputStream(response.getEntity().getContent())) {
+                    int responseStatusCode = response.getStatusLine().getStatusCode();
+                    if (responseStatusCode >= 400) {
+                        LOG.log(Level.SEVERE, "Failed to list job from remote " + url +". Response status code received " + responseStatusCode + ". Content: " + IOUtils.toString(content));
+                        return listing;
                     }
+                    try (ImportMetrics.Sample parse = ImportMetrics.start(client.getSiteUrl(), ImportMetrics.Operation.PARSE)) {
+                        JobListingParser.parse(content, parent, depth, listing);
+                        parse.succeeded(content.getCount());
+                    }
+                    listing.complete = true;
+                    request.succeeded(content.getCount());
                 }
             }
         } catch(Exception e) {
             LOG.log(Level.SEVERE, "Failed to list job from remote " + url, e);
         }
-        return items;
+        if (listing.complete) {
+            index.record(url, listing);
+        }
+        return listing;
     }
 
-
-
+    /**
+     * Drops the items {@code filter} rejects from a listing, together with everything listed below a rejected folder.
+     * Only the folders that are kept remain truncated, so the others are never requested. The site's index keeps the
+     * unfiltered listing.
+     */
+    static FolderListing filter(FolderListing listing, RemoteItemFilter filter) {
+        if (filter.isEmpty()) {
+            return listing;
+        }
+        final FolderListing filtered = new FolderListing(listing.parent);
+        filtered.complete = listing.complete;
+        final Set<RemoteItem> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+        // parents come first, so a rejected folder is known before its content
+        for (RemoteItem item : listing.items) {
+            if (rejected.contains(item.getParent()) || !filter.accepts(item)) {
+                rejected.add(item);
+            } else {
+                filtered.items.add(item);
+            }
+        }
+        for (RemoteFolder folder : listing.truncated) {
+            if (!rejected.contains(folder)) {
+                filtered.truncated.add(folder);
+            }
+        }
+        return filtered;
+    }
 }
@@ -0,0 +1,331 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import hudson.Util;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.jenkins.ci.plugins.jobimport.JobImportGlobalConfig;
+import org.jenkins.ci.plugins.jobimport.metrics.ImportMetrics;
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.NullSafeCredentials;
+import org.jenkins.ci.plugins.jobimport.utils.URLUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-lived, pooled HTTP client for one configured {@link JenkinsSite}.
+ * <p>
+ * Connections are kept alive and reused across listing and {@code config.xml} requests. Clients are
+ * created lazily, closed when their site is removed from {@code JobImportGlobalConfig} and when Jenkins stops.
+ * <p>
+ * Every request waits for the site's rate limit. Requests the site answers with a temporary error, or that fail to
+ * connect, are sent again after an exponential backoff with jitter, or after the delay the site asked for with
+ * {@code Retry-After}, during which no other request goes to that site either.
+ */
+public final class SiteClient implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger(SiteClient.class.getName());
+
+    static final int MAX_CONNECTIONS_PER_ROUTE = 8;
+    static final int MAX_CONNECTIONS_TOTAL = 32;
+    static final long CONNECTION_TTL_SECONDS = 120;
+    static final long IDLE_EVICTION_SECONDS = 30;
+    static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+    static final String INDEX_DIRECTORY = "job-import/index";
+    static final long RETRY_BASE_MILLIS = SystemProperties.getLong(SiteClient.class.getName() + ".retryBaseMillis", 500L);
+    static final long RETRY_MAX_MILLIS = SystemProperties.getLong(SiteClient.class.getName() + ".retryMaxMillis",
+            TimeUnit.MINUTES.toMillis(1));
+
+    private static final ConcurrentMap<String, SiteClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private final String siteUrl;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final DiscoveryCache discoveryCache = new DiscoveryCache();
+    private final RateLimiter rateLimiter = new RateLimiter();
+    // remote user name -> index of what that user sees
+    private final ConcurrentMap<String, SiteIndex> indexes = new ConcurrentHashMap<>();
+    private volatile JenkinsSite site;
+
+    private SiteClient(String siteUrl, JenkinsSite site) {
+        this.siteUrl = siteUrl;
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(CONNECTION_TTL_SECONDS, TimeUnit.SECONDS);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_EVICTION_SECONDS, TimeUnit.SECONDS)
+                .build();
+        bind(site);
+    }
+
+    /**
+     * @param site The configured remote Jenkins
+     * @return The shared client for this site, created on first use.
+     */
+    public static SiteClient of(JenkinsSite site) {
+        SiteClient client = CLIENTS.computeIfAbsent(keyOf(site), key -> new SiteClient(key, site));
+        client.bind(site);
+        return client;
+    }
+
+    /**
+     * Closes the clients of every site that is no longer configured.
+     *
+     * @param sites The currently configured sites
+     */
+    public static void retain(Collection<JenkinsSite> sites) {
+        final Set<String> keys = new HashSet<>();
+        if (sites != null) {
+            for (JenkinsSite site : sites) {
+                keys.add(keyOf(site));
+            }
+        }
+        for (Iterator<Map.Entry<String, SiteClient>> it = CLIENTS.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, SiteClient> entry = it.next();
+            if (!keys.contains(entry.getKey())) {
+                it.remove();
+                entry.getValue().close();
+            }
+        }
+    }
+
+    /**
+     * Loads the remote job index of every configured site, so that the first query does not wait for it.
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void loadIndexes() {
+        final JobImportGlobalConfig config = JobImportGlobalConfig.get();
+        if (config == null || config.getSites() == null) {
+            return;
+        }
+        for (JenkinsSite site : config.getSites()) {
+            try {
+                of(site).getIndex(CredentialsUtils.getCredentials(site.getUrl(), site.getDefaultCredentialsId()));
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Failed to load the remote job index of " + site.getUrl(), e);
+            }
+        }
+    }
+
+    @Terminator
+    public static void shutdown() {
+        retain(null);
+    }
+
+    private static String keyOf(JenkinsSite site) {
+        return site.getUrl() == null ? "" : site.getUrl().trim();
+    }
+
+    public String getSiteUrl() {
+        return siteUrl;
+    }
+
+    /**
+     * @return The latest configuration of the site this client talks to.
+     */
+    public JenkinsSite getSite() {
+        return site;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return site.getMaxConcurrentRequests();
+    }
+
+    DiscoveryCache getDiscoveryCache() {
+        return discoveryCache;
+    }
+
+    /**
+     * @return The on-disk index of the remote items {@code credentials} can see, loaded on first use.
+     */
+    SiteIndex getIndex(NullSafeCredentials credentials) {
+        return indexes.computeIfAbsent(credentials.username, username -> SiteIndex.load(new File(
+                new File(Jenkins.get().getRootDir(), INDEX_DIRECTORY), Util.getDigestOf(siteUrl + "\n" + username) + ".idx")));
+    }
+
+    private void bind(JenkinsSite site) {
+        this.site = site;
+        // never let the pool be the bottleneck of a concurrent crawl
+        connectionManager.setDefaultMaxPerRoute(Math.max(MAX_CONNECTIONS_PER_ROUTE, site.getMaxConcurrentRequests()));
+        connectionManager.setMaxTotal(Math.max(MAX_CONNECTIONS_TOTAL, site.getMaxConcurrentRequests()));
+        rateLimiter.setRate(site.getRequestsPerSecond());
+    }
+
+    /**
+     * The caller must close the response so that its connection goes back to the pool.
+     */
+    public CloseableHttpResponse get(String url, NullSafeCredentials credentials) throws IOException {
+        return execute(url, credentials, null, null);
+    }
+
+    /**
+     * The caller must close the stream so that its connection goes back to the pool.
+     */
+    public InputStream fetch(String url, NullSafeCredentials credentials) throws IOException {
+        return execute(url, credentials, null, null).getEntity().getContent();
+    }
+
+    /**
+     * Reads a whole response body. With the validators of a {@code previous} download, the remote is asked to only send
+     * it again when it changed.
+     *
+     * @param previous The last known version, or {@code null}
+     * @throws IOException If the request failed or the server answered with an error status
+     */
+    public ConfigDownload download(String url, NullSafeCredentials credentials, ConfigDownload previous) throws IOException {
+        try (ImportMetrics.Sample sample = ImportMetrics.start(siteUrl, ImportMetrics.Operation.DOWNLOAD);
+             CloseableHttpResponse response = execute(url, credentials,
+                previous == null ? null : previous.getEtag(), previous == null ? null : previous.getLastModified())) {
+            int responseStatusCode = response.getStatusLine().getStatusCode();
+            if (responseStatusCode == HttpStatus.SC_NOT_MODIFIED) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                sample.succeeded();
+                return new ConfigDownload(null, previous.getEtag(), previous.getLastModified());
+            }
+            if (responseStatusCode >= 400) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new IOException("Failed to fetch " + url + ". Response status code received " + responseStatusCode);
+            }
+            final byte[] body = EntityUtils.toByteArray(response.getEntity());
+            sample.succeeded(body.length);
+            return new ConfigDownload(body, header(response, HttpHeaders.ETAG), header(response, HttpHeaders.LAST_MODIFIED));
+        }
+    }
+
+    /**
+     * Sends a request within the site's rate limit, and again while the site answers with a temporary error, up to the
+     * site's retry limit. The last response is returned whatever its status.
+     */
+    private CloseableHttpResponse execute(String url, NullSafeCredentials credentials, String etag, String lastModified)
+            throws IOException {
+        final int maxRetries = site.getMaxRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to request " + url);
+            }
+
+            final CloseableHttpResponse response;
+            try {
+                response = URLUtils.getUrl(httpClient, url, credentials.username, credentials.password, etag, lastModified);
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                LOG.log(Level.FINE, "Retrying " + url + " after a failed request", e);
+                sleep(url, backoffMillis(attempt));
+                continue;
+            }
+
+            final int status = response.getStatusLine().getStatusCode();
+            if (attempt >= maxRetries || !isTemporary(status)) {
+                return response;
+            }
+            final long retryAfter = retryAfterMillis(response);
+            EntityUtils.consumeQuietly(response.getEntity());
+            response.close();
+            LOG.log(Level.FINE, "Retrying {0} after status {1}", new Object[] {url, status});
+            // the site is busy, hold back every request to it rather than only this one
+            rateLimiter.pause(retryAfter >= 0 ? retryAfter : backoffMillis(attempt));
+        }
+    }
+
+    private static boolean isTemporary(int status) {
+        return status == HttpStatus.SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_BAD_GATEWAY
+                || status == HttpStatus.SC_SERVICE_UNAVAILABLE || status == HttpStatus.SC_GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * @return A random delay up to {@link #RETRY_BASE_MILLIS} doubled for every attempt so far, capped at
+     * {@link #RETRY_MAX_MILLIS}.
+     */
+    static long backoffMillis(int attempt) {
+        final long ceiling = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(attempt, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return The delay the response asks for, capped at {@link #RETRY_MAX_MILLIS}, or -1 if it does not ask for one.
+     */
+    static long retryAfterMillis(CloseableHttpResponse response) {
+        final String value = header(response, HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return -1;
+        }
+        long millis;
+        try {
+            millis = TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            final Date date = DateUtils.parseDate(value);
+            if (date == null) {
+                return -1;
+            }
+            millis = date.getTime() - System.currentTimeMillis();
+        }
+        return Math.min(RETRY_MAX_MILLIS, Math.max(0, millis));
+    }
+
+    private static void sleep(String url, long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry " + url);
+        }
+    }
+
+    private static String header(CloseableHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+    @Override
+    public void close() {
+        discoveryCache.clear();
+        for (SiteIndex index : indexes.values()) {
+            index.flush();
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to close HTTP client for " + siteUrl, e);
+        }
+    }
+}
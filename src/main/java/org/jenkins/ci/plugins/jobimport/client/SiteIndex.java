@@ -0,0 +1,308 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import jenkins.util.SystemProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The remote folders of one site as they were last listed, kept on disk so that browsing does not wait for a crawl.
+ * <p>
+ * Every folder is recorded with the time it was listed. A listing whose folder was seen less than
+ * {@link #STALE_AFTER_MILLIS} ago is answered from the index, and only stale sub folders are requested again.
+ * <p>
+ * The index is only written when a listing changed what it knows, and at most every {@link #SAVE_INTERVAL_MILLIS}
+ * while listings come in; the rest is written when the site's client is closed.
+ */
+final class SiteIndex {
+
+    private static final Logger LOG = Logger.getLogger(SiteIndex.class.getName());
+
+    static final long STALE_AFTER_MILLIS = SystemProperties.getLong(SiteIndex.class.getName() + ".staleAfterMillis",
+            TimeUnit.MINUTES.toMillis(15));
+
+    static final long SAVE_INTERVAL_MILLIS = SystemProperties.getLong(SiteIndex.class.getName() + ".saveIntervalMillis",
+            TimeUnit.SECONDS.toMillis(10));
+
+    private static final int FORMAT_VERSION = 2;
+
+    private final File file;
+    // normalized folder URL -> content
+    private final Map<String, Snapshot> folders = new HashMap<>();
+    private boolean dirty;
+    private long savedAt;
+
+    private SiteIndex(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The index stored in {@code file}, empty if there is none or it cannot be read.
+     */
+    static SiteIndex load(File file) {
+        final SiteIndex index = new SiteIndex(file);
+        if (file.isFile()) {
+            try (InputStream raw = Files.newInputStream(file.toPath());
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)))) {
+                index.read(in);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Ignoring unreadable remote job index " + file, e);
+                index.folders.clear();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Answers a listing of {@code depth} levels below {@code url} from the index, with the same contract as
+     * {@link RestApiClient#listFolder}. Folders without fresh content are reported as truncated.
+     *
+     * @return {@code null} if the folder itself is not known or stale.
+     */
+    synchronized FolderListing listing(RemoteFolder parent, String url, int depth) {
+        final Snapshot snapshot = fresh(url);
+        if (snapshot == null) {
+            return null;
+        }
+        final FolderListing listing = new FolderListing(parent);
+        listing.complete = true;
+        materialize(snapshot, parent, 1, depth, listing);
+        return listing;
+    }
+
+    private void materialize(Snapshot snapshot, RemoteFolder parent, int level, int depth, FolderListing listing) {
+        for (Entry entry : snapshot.children) {
+            if (JobListingParser.FOLDER_CLASS.equals(entry.impl)) {
+                final RemoteFolder folder = new RemoteFolder(entry.name, entry.impl, entry.url, entry.description, parent);
+                listing.items.add(folder);
+                final Snapshot content = level < depth ? fresh(entry.url) : null;
+                if (content != null) {
+                    materialize(content, folder, level + 1, depth, listing);
+                } else {
+                    listing.truncated.add(folder);
+                }
+            } else {
+                listing.items.add(new RemoteJob(entry.name, entry.impl, entry.url, entry.description, parent));
+            }
+        }
+    }
+
+    private Snapshot fresh(String url) {
+        final Snapshot snapshot = folders.get(key(url));
+        if (snapshot == null || System.currentTimeMillis() - snapshot.fetchedAt > STALE_AFTER_MILLIS) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Records the content of {@code url} and of every sub folder the listing went into.
+     */
+    void record(String url, FolderListing listing) {
+        record(url, listing, System.currentTimeMillis());
+    }
+
+    synchronized void record(String url, FolderListing listing, long now) {
+        final List<Entry> root = new ArrayList<>();
+        final Map<RemoteItem, List<Entry>> content = new IdentityHashMap<>();
+        for (RemoteFolder folder : listing.truncated) {
+            content.put(folder, null);
+        }
+        for (RemoteItem item : listing.items) {
+            if (item.isFolder() && !content.containsKey(item)) {
+                content.put(item, new ArrayList<>());
+            }
+            final List<Entry> siblings = item.getParent() == listing.parent ? root : content.get(item.getParent());
+            if (siblings != null) {
+                siblings.add(new Entry(item.getName(), item.getImpl(), item.getUrl(),
+                        StringEscapeUtils.unescapeHtml4(item.getDescription())));
+            }
+        }
+
+        put(url, new Snapshot(now, root));
+        for (Map.Entry<RemoteItem, List<Entry>> folder : content.entrySet()) {
+            if (folder.getValue() != null) {
+                put(folder.getKey().getUrl(), new Snapshot(now, folder.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Keeps a snapshot, marking the index as changed when the content of the folder is new or differs. A folder that
+     * is listed again unchanged only gets fresh in memory.
+     */
+    private void put(String url, Snapshot snapshot) {
+        final Snapshot previous = folders.put(key(url), snapshot);
+        if (previous == null || !previous.children.equals(snapshot.children)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the index if it changed and was not written during the last {@link #SAVE_INTERVAL_MILLIS}.
+     */
+    synchronized void save() {
+        if (dirty && System.currentTimeMillis() - savedAt >= SAVE_INTERVAL_MILLIS) {
+            write();
+        }
+    }
+
+    /**
+     * Writes the index if it changed since it was last written.
+     */
+    synchronized void flush() {
+        if (dirty) {
+            write();
+        }
+    }
+
+    private void write() {
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            final File tmp = new File(file.getPath() + ".tmp");
+            try (OutputStream raw = Files.newOutputStream(tmp.toPath());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(raw)))) {
+                write(out);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            savedAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to save remote job index " + file, e);
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format");
+        }
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            final String url = readUtf8(in);
+            final long fetchedAt = in.readLong();
+            final int size = in.readInt();
+            final List<Entry> children = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) {
+                children.add(new Entry(readNullable(in), readNullable(in), readNullable(in), readNullable(in)));
+            }
+            folders.put(url, new Snapshot(fetchedAt, children));
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(folders.size());
+        for (Map.Entry<String, Snapshot> folder : folders.entrySet()) {
+            writeUtf8(out, folder.getKey());
+            out.writeLong(folder.getValue().fetchedAt);
+            out.writeInt(folder.getValue().children.size());
+            for (Entry entry : folder.getValue().children) {
+                writeNullable(out, entry.name);
+                writeNullable(out, entry.impl);
+                writeNullable(out, entry.url);
+                writeNullable(out, entry.description);
+            }
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return readUtf8(in);
+    }
+
+    private static String readUtf8(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeUtf8(out, value);
+        }
+    }
+
+    /**
+     * Writes the length as an int, unlike {@link DataOutputStream#writeUTF}, so that long descriptions fit.
+     */
+    private static void writeUtf8(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String key(String url) {
+        return StringUtils.removeEnd(StringUtils.trimToEmpty(url), "/");
+    }
+
+    private static final class Snapshot {
+        final long fetchedAt;
+        final List<Entry> children;
+
+        Snapshot(long fetchedAt, List<Entry> children) {
+            this.fetchedAt = fetchedAt;
+            this.children = children;
+        }
+    }
+
+    private static final class Entry {
+        final String name;
+        final String impl;
+        final String url;
+        final String description;
+
+        Entry(String name, String impl, String url, String description) {
+            this.name = name;
+            this.impl = impl;
+            this.url = url;
+            this.description = description;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry entry = (Entry) o;
+            return Objects.equals(name, entry.name) && Objects.equals(impl, entry.impl)
+                    && Objects.equals(url, entry.url) && Objects.equals(description, entry.description);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, impl, url, description);
+        }
+    }
+}
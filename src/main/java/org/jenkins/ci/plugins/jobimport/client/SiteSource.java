@@ -0,0 +1,58 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.NullSafeCredentials;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The items below a folder of a remote Jenkins, listed through its REST API and downloaded ahead by a
+ * {@link ConfigPrefetcher}.
+ */
+public final class SiteSource implements ImportSource {
+
+    private final SiteClient client;
+    private final NullSafeCredentials credentials;
+    private final String remoteUrl;
+    private final boolean recursiveSearch;
+    private final RemoteItemFilter filter;
+
+    public SiteSource(JenkinsSite site, String remoteUrl, boolean recursiveSearch, RemoteItemFilter filter) {
+        this(SiteClient.of(site), CredentialsUtils.getCredentials(site.getUrl(), site.getDefaultCredentialsId()),
+                remoteUrl, recursiveSearch, filter);
+    }
+
+    public SiteSource(SiteClient client, NullSafeCredentials credentials, String remoteUrl, boolean recursiveSearch,
+                      RemoteItemFilter filter) {
+        this.client = client;
+        this.credentials = credentials;
+        this.remoteUrl = remoteUrl;
+        this.recursiveSearch = recursiveSearch;
+        this.filter = filter;
+    }
+
+    @Override
+    public String getUrl() {
+        return client.getSiteUrl();
+    }
+
+    @Override
+    public RemoteItemIndex discover(boolean refresh) {
+        return RestApiClient.discover(client, remoteUrl, credentials, recursiveSearch, filter, refresh);
+    }
+
+    @Override
+    public ConfigSource configs(List<? extends RemoteItem> items, Function<? super RemoteItem, ConfigDownload> previous) {
+        return new ConfigPrefetcher(client, credentials, items, previous);
+    }
+
+    @Override
+    public void close() {
+        // the client is shared by every use of the site
+    }
+}
@@ -0,0 +1,134 @@
+package org.jenkins.ci.plugins.jobimport.metrics;
+
+import jenkins.model.Jenkins;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Where imports spend their time, per remote site: latency, bytes and errors of every request and of every local step
+ * of an import.
+ * <p>
+ * The numbers are kept in memory since Jenkins started. They are shown on the {@code job-import/stats} page, and
+ * published as gauges through the Metrics plugin when it is installed.
+ */
+public final class ImportMetrics {
+
+    private static final Logger LOG = Logger.getLogger(ImportMetrics.class.getName());
+
+    public enum Operation {
+        /** Listing a remote folder, from the request until the listing is parsed. */
+        DISCOVERY("discovery"),
+        /** Parsing a listing. */
+        PARSE("parse"),
+        /** Downloading a {@code config.xml}. */
+        DOWNLOAD("download"),
+        /** Creating a local item from a configuration. */
+        CREATE("create"),
+        /** Updating an existing local item from a configuration. */
+        UPDATE("update"),
+        /** Installing the plugins every configuration of an import needs, at once before any item is created. */
+        PLUGIN_PREVALIDATION("plugin-prevalidation");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    // site URL -> statistics of every operation seen for that site
+    private static final ConcurrentMap<String, Map<Operation, OperationStats>> SITES = new ConcurrentHashMap<>();
+
+    private ImportMetrics() {
+    }
+
+    /**
+     * Starts timing an operation. Close the sample when the operation is over; it counts as failed unless
+     * {@link Sample#succeeded} was called.
+     */
+    public static Sample start(String siteUrl, Operation operation) {
+        return new Sample(get(siteUrl, operation));
+    }
+
+    static OperationStats get(String siteUrl, Operation operation) {
+        final Map<Operation, OperationStats> site = SITES.computeIfAbsent(siteUrl == null ? "" : siteUrl,
+                url -> Collections.synchronizedMap(new EnumMap<>(Operation.class)));
+        synchronized (site) {
+            OperationStats stats = site.get(operation);
+            if (stats == null) {
+                stats = new OperationStats();
+                site.put(operation, stats);
+                publish(siteUrl, operation, stats);
+            }
+            return stats;
+        }
+    }
+
+    /**
+     * @return The statistics of every site, by URL, and of every operation in the order of {@link Operation}.
+     */
+    public static SortedMap<String, Map<Operation, OperationStats>> getSites() {
+        final SortedMap<String, Map<Operation, OperationStats>> sites = new TreeMap<>();
+        for (Map.Entry<String, Map<Operation, OperationStats>> site : SITES.entrySet()) {
+            synchronized (site.getValue()) {
+                sites.put(site.getKey(), new EnumMap<>(site.getValue()));
+            }
+        }
+        return sites;
+    }
+
+    private static void publish(String siteUrl, Operation operation, OperationStats stats) {
+        final Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || jenkins.getPlugin("metrics") == null) {
+            return;
+        }
+        try {
+            MetricsPluginBridge.register(siteUrl, operation, stats);
+        } catch (LinkageError | RuntimeException e) {
+            LOG.log(Level.FINE, "Failed to publish import metrics to the Metrics plugin", e);
+        }
+    }
+
+    /**
+     * One timed operation.
+     */
+    public static final class Sample implements AutoCloseable {
+        private final OperationStats stats;
+        private final long startedAt = System.nanoTime();
+        private boolean succeeded;
+        private long bytes;
+
+        private Sample(OperationStats stats) {
+            this.stats = stats;
+        }
+
+        public void succeeded() {
+            succeeded(0);
+        }
+
+        /**
+         * @param bytes How many bytes the operation transferred
+         */
+        public void succeeded(long bytes) {
+            this.succeeded = true;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            stats.record(System.nanoTime() - startedAt, bytes, !succeeded);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.jenkins.ci.plugins.jobimport.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import jenkins.metrics.api.Metrics;
+
+/**
+ * Publishes {@link OperationStats} as gauges of the Metrics plugin, named like
+ * {@code jenkins.job-import.<site>.<operation>.count}. Only loaded when that plugin is installed.
+ */
+final class MetricsPluginBridge {
+
+    private MetricsPluginBridge() {
+    }
+
+    static void register(String siteUrl, ImportMetrics.Operation operation, OperationStats stats) {
+        final MetricRegistry registry = Metrics.metricRegistry();
+        if (registry == null) {
+            return;
+        }
+        final String prefix = MetricRegistry.name("jenkins", "job-import", siteName(siteUrl), operation.getKey());
+        register(registry, prefix + ".count", stats::getCount);
+        register(registry, prefix + ".errors", stats::getErrors);
+        register(registry, prefix + ".bytes", stats::getBytes);
+        register(registry, prefix + ".mean-millis", stats::getMeanMillis);
+        register(registry, prefix + ".p95-millis", () -> stats.getPercentileMillis(0.95));
+        register(registry, prefix + ".max-millis", stats::getMaxMillis);
+    }
+
+    private static <T> void register(MetricRegistry registry, String name, Gauge<T> gauge) {
+        if (!registry.getNames().contains(name)) {
+            registry.register(name, gauge);
+        }
+    }
+
+    /**
+     * @return The host and port of the site, usable within a metric name.
+     */
+    static String siteName(String siteUrl) {
+        String name = siteUrl == null ? "" : siteUrl.replaceFirst("^[a-zA-Z]+://", "");
+        name = name.replaceFirst("/+$", "");
+        return name.replaceAll("[^A-Za-z0-9-]", "_");
+    }
+}
@@ -8,18 +8,31 @@ import hudson.Extension;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Descriptor;
 import hudson.security.ACL;
+import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jenkins.model.Jenkins;
+import org.jenkins.ci.plugins.jobimport.Messages;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 
 import java.util.Collections;
 
 public class JenkinsSite extends AbstractDescribableImpl<JenkinsSite> {
 
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+    public static final int DEFAULT_TREE_DEPTH = 1;
+    public static final int MAX_TREE_DEPTH = 10;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
     private final String name;
     private final String url;
     private String defaultCredentialsId;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private int treeDepth = DEFAULT_TREE_DEPTH;
+    private int requestsPerSecond;
+    // null for sites saved before this setting existed
+    private Integer maxRetries = DEFAULT_MAX_RETRIES;
 
     @DataBoundConstructor
     public JenkinsSite(String name, String url) {
@@ -36,6 +49,60 @@ public class JenkinsSite extends AbstractDescribableImpl<JenkinsSite> {
         return defaultCredentialsId;
     }
 
+    @DataBoundSetter
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return How many requests may be in flight against this site at once while crawling or importing.
+     */
+    public int getMaxConcurrentRequests() {
+        // sites saved before this setting existed are loaded with 0
+        return maxConcurrentRequests > 0 ? maxConcurrentRequests : DEFAULT_MAX_CONCURRENT_REQUESTS;
+    }
+
+    @DataBoundSetter
+    public void setTreeDepth(int treeDepth) {
+        this.treeDepth = treeDepth;
+    }
+
+    /**
+     * @return How many folder levels a recursive search asks for in a single request. Folders cut off at this depth
+     * are listed with follow-up requests.
+     */
+    public int getTreeDepth() {
+        if (treeDepth <= 0) {
+            return DEFAULT_TREE_DEPTH;
+        }
+        return Math.min(treeDepth, MAX_TREE_DEPTH);
+    }
+
+    @DataBoundSetter
+    public void setRequestsPerSecond(int requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @return How many requests per second may be sent to this site, 0 for no limit.
+     */
+    public int getRequestsPerSecond() {
+        return Math.max(0, requestsPerSecond);
+    }
+
+    @DataBoundSetter
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return How many times a request this site answered with a temporary error, like {@code 429} or {@code 503}, is
+     * sent again.
+     */
+    public int getMaxRetries() {
+        return maxRetries == null ? DEFAULT_MAX_RETRIES : Math.max(0, maxRetries);
+    }
+
     public String getUrl() {
         return url;
     }
@@ -68,6 +135,28 @@ public class JenkinsSite extends AbstractDescribableImpl<JenkinsSite> {
                     );
         }
 
+        public FormValidation doCheckMaxConcurrentRequests(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public FormValidation doCheckRequestsPerSecond(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckMaxRetries(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckTreeDepth(@QueryParameter String value) {
+            FormValidation positive = FormValidation.validatePositiveInteger(value);
+            if (positive.kind != FormValidation.Kind.OK) {
+                return positive;
+            }
+            if (Integer.parseInt(value) > MAX_TREE_DEPTH) {
+                return FormValidation.warning(Messages.Job_Import_Plugin_Site_TreeDepthCapped(MAX_TREE_DEPTH));
+            }
+            return FormValidation.ok();
+        }
     }
 
 }
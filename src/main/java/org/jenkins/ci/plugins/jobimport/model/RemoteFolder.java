@@ -2,22 +2,41 @@ package org.jenkins.ci.plugins.jobimport.model;
 
 
 import java.io.Serializable;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.List;
 
 public class RemoteFolder extends RemoteItem implements Serializable {
 
-    private final SortedSet<RemoteItem> children = new TreeSet<RemoteItem>();
+    // appended while crawling and sorted once when first read, rather than kept sorted on every insert
+    private final List<RemoteItem> children = new ArrayList<>();
+    private boolean sorted = true;
 
     public RemoteFolder(String name, String impl, String url, String description, RemoteFolder parent) {
         super(name, impl, url, description, parent);
     }
 
-    public SortedSet<RemoteItem> getChildren() {
-        return children;
+    public synchronized void addChild(RemoteItem child) {
+        children.add(child);
+        sorted = false;
     }
 
-    public boolean hasChildren() {
+    public synchronized void addChildren(List<? extends RemoteItem> items) {
+        children.addAll(items);
+        sorted = false;
+    }
+
+    /**
+     * @return A copy of the direct children, sorted by full name, that is safe to iterate while children are added.
+     */
+    public synchronized List<RemoteItem> getChildren() {
+        if (!sorted) {
+            children.sort(null);
+            sorted = true;
+        }
+        return List.copyOf(children);
+    }
+
+    public synchronized boolean hasChildren() {
         return !children.isEmpty();
     }
 
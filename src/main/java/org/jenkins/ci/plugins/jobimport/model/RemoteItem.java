@@ -1,10 +1,11 @@
 package org.jenkins.ci.plugins.jobimport.model;
 
-import com.google.common.base.Objects;
-import org.apache.commons.lang3.ObjectUtils;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
 import org.jenkins.ci.plugins.jobimport.utils.RemoteItemUtils;
 
 import java.io.Serializable;
+import java.util.Comparator;
+import java.util.Objects;
 
 public abstract class RemoteItem implements Serializable, Comparable<RemoteItem> {
     protected final String name;
@@ -15,6 +16,11 @@ public abstract class RemoteItem implements Serializable, Comparable<RemoteItem>
 
     protected final RemoteFolder parent;
 
+    private static final Comparator<String> BY_IMPL = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    // items are compared and hashed a lot while sorting large trees, so this is computed once
+    private final int hash;
+
     protected RemoteItem(String name, String impl, String url, String description, RemoteFolder parent) {
         this.name = name;
         this.impl = impl;
@@ -23,7 +29,8 @@ public abstract class RemoteItem implements Serializable, Comparable<RemoteItem>
 
         this.parent = parent;
 
-        this.fullName = getFullName();
+        this.fullName = parent == null ? name : parent.getFullName() + Constants.SEPARATOR + name;
+        this.hash = 31 * Objects.hashCode(fullName) + Objects.hashCode(impl);
     }
 
     public abstract boolean isFolder();
@@ -33,7 +40,11 @@ public abstract class RemoteItem implements Serializable, Comparable<RemoteItem>
     }
 
     public String getFullName() {
-        return RemoteItemUtils.fullName(this);
+        return fullName;
+    }
+
+    public String getImpl() {
+        return impl;
     }
 
     public String getUrl() {
@@ -54,24 +65,28 @@ public abstract class RemoteItem implements Serializable, Comparable<RemoteItem>
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(getFullName(), impl);
+        return hash;
     }
 
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if (obj instanceof RemoteItem) {
-            return Objects.equal(impl, ((RemoteItem)obj).impl) &&
-                    Objects.equal(getFullName(), ((RemoteItem)obj).getFullName());
+            RemoteItem other = (RemoteItem) obj;
+            return hash == other.hash && Objects.equals(fullName, other.fullName) && Objects.equals(impl, other.impl);
         }
         return false;
     }
 
+    /**
+     * Orders by full name, and items of the same name by class, so that only {@link #equals equal} items compare as
+     * the same in sorted maps and sets.
+     */
     @Override
     public int compareTo(RemoteItem o) {
-        if (equals(o)) {
-            return 0;
-        }
-
-        return getFullName().compareTo(o.getFullName());
+        final int byName = fullName.compareTo(o.fullName);
+        return byName != 0 ? byName : BY_IMPL.compare(impl, o.impl);
     }
 }
@@ -0,0 +1,173 @@
+package org.jenkins.ci.plugins.jobimport.model;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Which remote items a discovery keeps, applied while crawling so that folders which cannot contain a match are not
+ * listed at all.
+ * <p>
+ * Name patterns match the full name of an item, either as a glob ({@code *} within one folder level, {@code **} across
+ * levels, {@code ?} for one character) or as a regular expression. Classes match the {@code _class} of an item, fully
+ * qualified or by simple name. Folders are kept as long as they are not excluded and may hold a match; their content
+ * is filtered item by item, and an excluded folder takes its content with it.
+ */
+public final class RemoteItemFilter {
+
+    public static final RemoteItemFilter ALL = new RemoteItemFilter(null, null, false, null, null);
+
+    private final String include;
+    private final String exclude;
+    private final boolean regex;
+    private final List<String> includeClasses;
+    private final List<String> excludeClasses;
+
+    private final Pattern includePattern;
+    private final Pattern excludePattern;
+
+    /**
+     * @param include Pattern an item must match, or blank for any
+     * @param exclude Pattern an item must not match, or blank for none
+     * @param regex Whether the patterns are regular expressions rather than globs
+     * @param includeClasses Comma separated classes a job must have, or blank for any
+     * @param excludeClasses Comma separated classes an item must not have, or blank for none
+     * @throws java.util.regex.PatternSyntaxException If a pattern is not a valid regular expression
+     */
+    public RemoteItemFilter(String include, String exclude, boolean regex, String includeClasses, String excludeClasses) {
+        this.include = StringUtils.trimToNull(include);
+        this.exclude = StringUtils.trimToNull(exclude);
+        this.regex = regex;
+        this.includeClasses = split(includeClasses);
+        this.excludeClasses = split(excludeClasses);
+        this.includePattern = this.include == null ? null : compile(this.include, regex);
+        this.excludePattern = this.exclude == null ? null : compile(this.exclude, regex);
+    }
+
+    private static List<String> split(String classes) {
+        if (StringUtils.isBlank(classes)) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(classes.split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isEmpty() {
+        return include == null && exclude == null && includeClasses.isEmpty() && excludeClasses.isEmpty();
+    }
+
+    /**
+     * @return Whether the item is kept. A kept folder is worth descending into.
+     */
+    public boolean accepts(RemoteItem item) {
+        if (isEmpty()) {
+            return true;
+        }
+        if (hasClass(item, excludeClasses) || (exclude != null && excludePattern.matcher(item.getFullName()).matches())) {
+            return false;
+        }
+        if (item.isFolder()) {
+            return include == null || mayContainMatch(item.getFullName())
+                    || includePattern.matcher(item.getFullName()).matches();
+        }
+        return (includeClasses.isEmpty() || hasClass(item, includeClasses))
+                && (include == null || includePattern.matcher(item.getFullName()).matches());
+    }
+
+    /**
+     * Whether some item below the folder may match the include pattern: the match attempt on the folder's prefix
+     * either succeeded or ran out of input, so that a longer name could still match.
+     */
+    private boolean mayContainMatch(String folderFullName) {
+        final Matcher matcher = includePattern.matcher(folderFullName + Constants.SEPARATOR);
+        return matcher.matches() || matcher.hitEnd();
+    }
+
+    private static boolean hasClass(RemoteItem item, List<String> classes) {
+        final String impl = StringUtils.defaultString(item.getImpl());
+        for (String c : classes) {
+            if (impl.equals(c) || impl.endsWith("." + c) || impl.endsWith("$" + c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern compile(String pattern, boolean regex) {
+        return Pattern.compile(toRegex(pattern, regex));
+    }
+
+    /**
+     * @return The regular expression a name pattern stands for.
+     */
+    public static String toRegex(String pattern, boolean regex) {
+        return regex ? pattern : globToRegex(pattern);
+    }
+
+    static String globToRegex(String glob) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    sb.append(".*");
+                    i++;
+                } else {
+                    sb.append("[^/]*");
+                }
+            } else if (c == '?') {
+                sb.append("[^/]");
+            } else {
+                sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return sb.toString();
+    }
+
+    public String getInclude() {
+        return include;
+    }
+
+    public String getExclude() {
+        return exclude;
+    }
+
+    public boolean isRegex() {
+        return regex;
+    }
+
+    public String getIncludeClasses() {
+        return String.join(",", includeClasses);
+    }
+
+    public String getExcludeClasses() {
+        return String.join(",", excludeClasses);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RemoteItemFilter)) {
+            return false;
+        }
+        RemoteItemFilter that = (RemoteItemFilter) o;
+        return regex == that.regex && Objects.equals(include, that.include) && Objects.equals(exclude, that.exclude)
+                && includeClasses.equals(that.includeClasses) && excludeClasses.equals(that.excludeClasses);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(include, exclude, regex, includeClasses, excludeClasses);
+    }
+}
@@ -0,0 +1,100 @@
+package org.jenkins.ci.plugins.jobimport.model;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A discovered remote tree together with hash lookups by URL and by full name, so that resolving the jobs selected for
+ * an import does not scan the tree once per job.
+ */
+public final class RemoteItemIndex {
+
+    private final List<RemoteItem> items;
+    private final List<RemoteItem> roots;
+    private final Map<String, RemoteItem> byUrl = new ConcurrentHashMap<>();
+    private final Map<String, RemoteItem> byFullName = new ConcurrentHashMap<>();
+
+    /**
+     * @param items The discovered items; the content of folders is indexed as well.
+     */
+    public RemoteItemIndex(List<RemoteItem> items) {
+        this.items = Collections.unmodifiableList(items);
+        addAll(items);
+
+        final List<RemoteItem> top = new ArrayList<>();
+        for (RemoteItem item : items) {
+            if (!item.hasParent()) {
+                top.add(item);
+            }
+        }
+        top.sort(null);
+        this.roots = Collections.unmodifiableList(top);
+    }
+
+    /**
+     * Indexes items found after the discovery, like the content of a folder that was opened later on.
+     */
+    public void addAll(Collection<? extends RemoteItem> found) {
+        final Deque<RemoteItem> pending = new ArrayDeque<>(found);
+        while (!pending.isEmpty()) {
+            final RemoteItem item = pending.pop();
+            // the first item wins, like the scan this replaces
+            if (byFullName.putIfAbsent(item.getFullName(), item) == null && item.isFolder()) {
+                pending.addAll(((RemoteFolder) item).getChildren());
+            }
+            byUrl.putIfAbsent(normalizeUrl(item.getUrl()), item);
+        }
+    }
+
+    /**
+     * @return The items as discovered.
+     */
+    public List<RemoteItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The discovered items that are not inside another discovered folder, sorted by full name.
+     */
+    public List<RemoteItem> getRoots() {
+        return roots;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * @return The number of items, folder content included.
+     */
+    public int size() {
+        return byFullName.size();
+    }
+
+    public Collection<RemoteItem> getAllItems() {
+        return Collections.unmodifiableCollection(byFullName.values());
+    }
+
+    public RemoteItem getByUrl(String url) {
+        return StringUtils.isBlank(url) ? null : byUrl.get(normalizeUrl(url));
+    }
+
+    public RemoteItem getByFullName(String fullName) {
+        return StringUtils.isBlank(fullName) ? null : byFullName.get(fullName.trim());
+    }
+
+    /**
+     * Jenkins links items with a trailing slash, but both forms name the same item.
+     */
+    static String normalizeUrl(String url) {
+        return StringUtils.removeEnd(StringUtils.trimToEmpty(url), "/");
+    }
+}
@@ -0,0 +1,85 @@
+package org.jenkins.ci.plugins.jobimport.model;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import org.jenkins.ci.plugins.jobimport.Messages;
+import org.jenkins.ci.plugins.jobimport.utils.ConfigRewriter;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An edit applied to every imported {@code config.xml}: the text of the elements, or the values of the attributes,
+ * {@link #getSelector() selected} have every match of {@link #getPattern()} replaced.
+ *
+ * @see ConfigRewriter
+ */
+public class RewriteRule extends AbstractDescribableImpl<RewriteRule> {
+
+    private final String selector;
+    private final String pattern;
+    private final String replacement;
+
+    @DataBoundConstructor
+    public RewriteRule(String selector, String pattern, String replacement) {
+        this.selector = selector;
+        this.pattern = pattern;
+        this.replacement = replacement;
+    }
+
+    /**
+     * @return Element names separated by {@code /}, like {@code hudson.plugins.git.UserRemoteConfig/url}, matching
+     * at any depth, or from the root element when it starts with a single {@code /}. {@code *} stands for any element,
+     * and a last step like {@code @plugin} selects an attribute of the element instead of its text.
+     */
+    public String getSelector() {
+        return selector;
+    }
+
+    /**
+     * @return A regular expression.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return What a match is replaced with; {@code $1} refers to a group of the pattern.
+     */
+    public String getReplacement() {
+        return replacement == null ? "" : replacement;
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends Descriptor<RewriteRule> {
+        @Override
+        public String getDisplayName() {
+            return "";
+        }
+
+        public FormValidation doCheckSelector(@QueryParameter String value) {
+            try {
+                ConfigRewriter.checkSelector(value);
+                return FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        public FormValidation doCheckPattern(@QueryParameter String value) {
+            if (value == null || value.isEmpty()) {
+                return FormValidation.error(Messages.Job_Import_Plugin_RewriteRule_PatternRequired());
+            }
+            try {
+                Pattern.compile(value);
+                return FormValidation.ok();
+            } catch (PatternSyntaxException e) {
+                return FormValidation.error(e.getDescription());
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.jenkins.ci.plugins.jobimport.utils;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jenkins.ci.plugins.jobimport.Messages;
+import org.jenkins.ci.plugins.jobimport.model.RewriteRule;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Applies {@link RewriteRule}s to a {@code config.xml} in a single streaming pass: the events are copied from a StAX
+ * reader to a writer, and only the text and attributes of selected elements are buffered and replaced. No tree of the
+ * document is ever built, so large pipeline definitions cost no more than their bytes.
+ * <p>
+ * A configuration no rule changes is returned as it was, byte for byte.
+ */
+public final class ConfigRewriter {
+
+    private static final ConfigRewriter NONE = new ConfigRewriter(Collections.emptyList(), null);
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newFactory();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final List<Rule> textRules = new ArrayList<>();
+    private final List<Rule> attributeRules = new ArrayList<>();
+    private final String fingerprint;
+
+    private ConfigRewriter(List<Rule> rules, String fingerprint) {
+        this.fingerprint = fingerprint;
+        for (Rule rule : rules) {
+            (rule.selector.attribute == null ? textRules : attributeRules).add(rule);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If a rule has an invalid selector or pattern.
+     */
+    public static ConfigRewriter of(List<RewriteRule> rules) {
+        if (rules == null || rules.isEmpty()) {
+            return NONE;
+        }
+        final List<Rule> compiled = new ArrayList<>(rules.size());
+        final StringBuilder definition = new StringBuilder();
+        for (RewriteRule rule : rules) {
+            compiled.add(new Rule(rule));
+            definition.append(rule.getSelector()).append('\0')
+                    .append(rule.getPattern()).append('\0')
+                    .append(rule.getReplacement()).append('\n');
+        }
+        return new ConfigRewriter(compiled, DigestUtils.sha256Hex(definition.toString()));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the selector is not valid, see {@link RewriteRule#getSelector()}.
+     */
+    public static void checkSelector(String selector) {
+        new Selector(selector);
+    }
+
+    /**
+     * @return A hash of the rules, in order, so that what was imported with other rules can be told apart, or
+     * {@code null} without rules.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean isEmpty() {
+        return textRules.isEmpty() && attributeRules.isEmpty();
+    }
+
+    /**
+     * @return The configuration with the rules applied, or {@code config} itself when no rule changed anything.
+     * @throws IOException If the configuration is not well-formed XML.
+     */
+    public byte[] rewrite(byte[] config) throws IOException {
+        if (isEmpty()) {
+            return config;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(config.length + 256);
+        final boolean changed;
+        try {
+            changed = rewrite(INPUT_FACTORY.createXMLEventReader(new ByteArrayInputStream(config)), out);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to rewrite the configuration: " + e.getMessage(), e);
+        }
+        return changed ? out.toByteArray() : config;
+    }
+
+    private boolean rewrite(XMLEventReader reader, ByteArrayOutputStream out) throws XMLStreamException {
+        final XMLEvent first = reader.peek();
+        final String encoding = first != null && first.isStartDocument() && ((StartDocument) first).encodingSet()
+                ? ((StartDocument) first).getCharacterEncodingScheme() : StandardCharsets.UTF_8.name();
+        final XMLEventWriter writer = OUTPUT_FACTORY.createXMLEventWriter(out, encoding);
+
+        // names of the open elements, and the rules selecting the text of each
+        final List<String> path = new ArrayList<>();
+        final List<List<Rule>> selectedText = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+        boolean changed = false;
+        try {
+            while (reader.hasNext()) {
+                final XMLEvent event = reader.nextEvent();
+                final List<Rule> selecting = selectedText.isEmpty() ? null : selectedText.get(selectedText.size() - 1);
+                if (event.isCharacters() && selecting != null && !selecting.isEmpty()) {
+                    text.append(event.asCharacters().getData());
+                    continue;
+                }
+                if (text.length() > 0) {
+                    final String original = text.toString();
+                    final String replaced = apply(selecting, original);
+                    changed |= !replaced.equals(original);
+                    writer.add(EVENT_FACTORY.createCharacters(replaced));
+                    text.setLength(0);
+                }
+
+                if (event.isStartElement()) {
+                    final StartElement start = event.asStartElement();
+                    path.add(start.getName().getLocalPart());
+                    final List<Rule> selected = new ArrayList<>();
+                    for (Rule rule : textRules) {
+                        if (rule.selector.matches(path)) {
+                            selected.add(rule);
+                        }
+                    }
+                    selectedText.add(selected);
+                    final StartElement rewritten = rewriteAttributes(start, path);
+                    changed |= rewritten != start;
+                    writer.add(rewritten);
+                } else {
+                    if (event.isEndElement()) {
+                        path.remove(path.size() - 1);
+                        selectedText.remove(selectedText.size() - 1);
+                    }
+                    writer.add(event);
+                }
+            }
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+        return changed;
+    }
+
+    /**
+     * @return The element with the attribute rules applied, or {@code start} itself when none changed a value.
+     */
+    private StartElement rewriteAttributes(StartElement start, List<String> path) {
+        if (attributeRules.isEmpty()) {
+            return start;
+        }
+        final List<Attribute> attributes = new ArrayList<>();
+        boolean changed = false;
+        for (Iterator<Attribute> it = start.getAttributes(); it.hasNext(); ) {
+            final Attribute attribute = it.next();
+            String value = attribute.getValue();
+            for (Rule rule : attributeRules) {
+                if (attribute.getName().getLocalPart().equals(rule.selector.attribute) && rule.selector.matches(path)) {
+                    value = rule.apply(value);
+                }
+            }
+            if (value.equals(attribute.getValue())) {
+                attributes.add(attribute);
+            } else {
+                attributes.add(EVENT_FACTORY.createAttribute(attribute.getName(), value));
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return start;
+        }
+        return EVENT_FACTORY.createStartElement(start.getName(), attributes.iterator(), start.getNamespaces());
+    }
+
+    private static String apply(List<Rule> rules, String text) {
+        String result = text;
+        if (rules != null) {
+            for (Rule rule : rules) {
+                result = rule.apply(result);
+            }
+        }
+        return result;
+    }
+
+    private static final class Rule {
+
+        final Selector selector;
+        final Pattern pattern;
+        final String replacement;
+
+        Rule(RewriteRule rule) {
+            this.selector = new Selector(rule.getSelector());
+            if (rule.getPattern() == null || rule.getPattern().isEmpty()) {
+                throw new IllegalArgumentException(Messages.Job_Import_Plugin_RewriteRule_NoPattern(rule.getSelector()));
+            }
+            try {
+                this.pattern = Pattern.compile(rule.getPattern());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException(
+                        Messages.Job_Import_Plugin_RewriteRule_InvalidPattern(rule.getPattern(), e.getDescription()), e);
+            }
+            this.replacement = rule.getReplacement();
+        }
+
+        String apply(String text) {
+            final Matcher matcher = pattern.matcher(text);
+            return matcher.find() ? matcher.replaceAll(replacement) : text;
+        }
+    }
+
+    /**
+     * A parsed {@link RewriteRule#getSelector()}: the trailing element names, whether they start at the root, and an
+     * optional attribute.
+     */
+    private static final class Selector {
+
+        private static final String ANY = "*";
+
+        final String[] steps;
+        final boolean anchored;
+        final String attribute;
+
+        Selector(String selector) {
+            if (selector == null || selector.trim().isEmpty()) {
+                throw new IllegalArgumentException(Messages.Job_Import_Plugin_RewriteRule_SelectorRequired());
+            }
+            String rest = selector.trim();
+            anchored = rest.startsWith(Constants.SEPARATOR) && !rest.startsWith("//");
+            while (rest.startsWith(Constants.SEPARATOR)) {
+                rest = rest.substring(1);
+            }
+            final List<String> names = new ArrayList<>();
+            String attributeName = null;
+            final String[] parts = rest.split(Constants.SEPARATOR, -1);
+            for (int i = 0; i < parts.length; i++) {
+                final String part = parts[i];
+                if (part.isEmpty()) {
+                    throw new IllegalArgumentException(Messages.Job_Import_Plugin_RewriteRule_EmptyStep(selector));
+                }
+                if (part.startsWith("@")) {
+                    if (i != parts.length - 1 || part.length() == 1) {
+                        throw new IllegalArgumentException(Messages.Job_Import_Plugin_RewriteRule_AttributeNotLast(selector));
+                    }
+                    attributeName = part.substring(1);
+                } else {
+                    names.add(part);
+                }
+            }
+            if (anchored && names.isEmpty()) {
+                throw new IllegalArgumentException(Messages.Job_Import_Plugin_RewriteRule_NoElement(selector));
+            }
+            this.steps = names.toArray(new String[0]);
+            this.attribute = attributeName;
+        }
+
+        /**
+         * @param path The names of the open elements, from the root
+         */
+        boolean matches(List<String> path) {
+            if (anchored ? path.size() != steps.length : path.size() < steps.length) {
+                return false;
+            }
+            final int offset = path.size() - steps.length;
+            for (int i = 0; i < steps.length; i++) {
+                if (!ANY.equals(steps[i]) && !steps[i].equals(path.get(offset + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -10,9 +10,29 @@ public final class Constants {
     public static final String URL_NAME= "job-import";
     public static final String REMOTE_URL_PARAM = "remoteUrl";
     public static final String JOB_URL_PARAM = "jobUrl";
-    public static final String XML_API_QUERY = "api/xml?tree=jobs[name,url,description]";
+    public static final String JOB_TREE_FIELDS = "name,url,description";
+    public static final String XML_API_QUERY = "api/xml?tree=jobs[" + JOB_TREE_FIELDS + "]";
     public static final String RECURSIVE_PARAM = "recursiveSearch";
+    public static final String REFRESH_PARAM = "refresh";
     public static final String LOCAL_FOLDER_PARAM = "localFolder";
+    public static final String BUNDLE_PARAM = "bundle";
+    public static final String INCLUDE_FILTER_PARAM = "includeFilter";
+    public static final String EXCLUDE_FILTER_PARAM = "excludeFilter";
+    public static final String REGEX_FILTER_PARAM = "regexFilter";
+    public static final String INCLUDE_CLASSES_PARAM = "includeClasses";
+    public static final String EXCLUDE_CLASSES_PARAM = "excludeClasses";
 
     public static final int MAX_STR_LEN = 4096;
+
+    /**
+     * @param depth How many folder levels to list, at least 1
+     * @return The query listing {@code depth} nested levels of jobs, e.g. {@code jobs[name,url,description,jobs[name,url,description]]}.
+     */
+    public static String xmlApiQuery(int depth) {
+        String tree = JOB_TREE_FIELDS;
+        for (int i = 1; i < depth; i++) {
+            tree = JOB_TREE_FIELDS + "," + JOBS_SEPARATOR + "[" + tree + "]";
+        }
+        return "api/xml?tree=" + JOBS_SEPARATOR + "[" + tree + "]";
+    }
 }
@@ -2,42 +2,142 @@ package org.jenkins.ci.plugins.jobimport.utils;
 
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.CredentialsStore;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
 import com.google.common.base.Strings;
-import hudson.model.Item;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
 import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 /**
  * Created by evildethow on 28/06/2016.
  */
 public final class CredentialsUtils {
 
+  private static final Logger LOG = Logger.getLogger(CredentialsUtils.class.getName());
+
+  // how long resolved credentials are reused, for providers whose changes are not announced
+  static final long CACHE_TTL_MILLIS = SystemProperties.getLong(CredentialsUtils.class.getName() + ".cacheTtlMillis",
+      TimeUnit.MINUTES.toMillis(5));
+
+  // how many site and credential id pairs are kept at most
+  static final int CACHE_SIZE = SystemProperties.getInteger(CredentialsUtils.class.getName() + ".cacheSize", 100);
+
+  // site URL and credential id -> the credentials they resolved to
+  private static final ConcurrentMap<String, CachedCredentials> CACHE = new ConcurrentHashMap<>();
+
   private CredentialsUtils() {
     throw new UnsupportedOperationException("Cannot instantiate utility class");
   }
 
-  public static NullSafeCredentials getCredentials(String credentialId) {
-    if (!Strings.isNullOrEmpty(credentialId)) {
-      StandardUsernamePasswordCredentials cred = CredentialsMatchers.firstOrNull(allCredentials(), CredentialsMatchers.withId(credentialId));
-      if (cred != null) {
-        return new NullSafeCredentials(cred.getUsername(), cred.getPassword().getPlainText());
-      }
+  /**
+   * Resolves the credentials to use against a site. Looking them up scans every credentials store, so the result is
+   * reused by every query, crawl and import of that site until a credentials store changes, or for at most
+   * {@link #CACHE_TTL_MILLIS}.
+   *
+   * @param siteUrl The site the credentials are for. Credentials restricted to domains that do not match it are not
+   *                used, like in any other lookup of credentials for a URL, and a warning tells about it
+   * @param credentialId The id of username and password credentials
+   */
+  public static NullSafeCredentials getCredentials(String siteUrl, String credentialId) {
+    if (Strings.isNullOrEmpty(credentialId)) {
+      return new NullSafeCredentials();
+    }
+    final String key = Strings.nullToEmpty(siteUrl) + '\n' + credentialId;
+    final CachedCredentials cached = CACHE.get(key);
+    if (cached != null && !cached.isExpired()) {
+      return cached.credentials;
+    }
+    final NullSafeCredentials credentials = lookup(siteUrl, credentialId);
+    evict();
+    CACHE.put(key, new CachedCredentials(credentials));
+    return credentials;
+  }
+
+  /**
+   * Drops the expired entries, and the oldest ones while the cache is still full.
+   */
+  private static void evict() {
+    CACHE.values().removeIf(CachedCredentials::isExpired);
+    while (!CACHE.isEmpty() && CACHE.size() >= CACHE_SIZE) {
+      CACHE.entrySet().stream()
+          .min(Comparator.comparingLong(entry -> entry.getValue().expiresAt))
+          .ifPresent(oldest -> CACHE.remove(oldest.getKey(), oldest.getValue()));
+    }
+  }
+
+  static int cacheSize() {
+    return CACHE.size();
+  }
+
+  private static NullSafeCredentials lookup(String siteUrl, String credentialId) {
+    final List<DomainRequirement> requirements = Strings.isNullOrEmpty(siteUrl)
+        ? Collections.<DomainRequirement>emptyList()
+        : URIRequirementBuilder.fromUri(siteUrl).build();
+    final StandardUsernamePasswordCredentials cred = find(credentialId, requirements);
+    if (cred != null) {
+      return new NullSafeCredentials(cred.getUsername(), cred.getPassword().getPlainText());
+    }
+    if (!requirements.isEmpty() && find(credentialId, Collections.<DomainRequirement>emptyList()) != null) {
+      LOG.warning("Not using the credentials " + credentialId + " for " + siteUrl
+          + ", their credentials domain does not match it. The site is queried anonymously.");
     }
     return new NullSafeCredentials();
   }
 
-  @Deprecated
-  public static List<StandardUsernamePasswordCredentials> allCredentials() {
-    return CredentialsProvider.lookupCredentials(
-        StandardUsernamePasswordCredentials.class,
-        (Item) null,
-        ACL.SYSTEM,
-        Collections.<DomainRequirement>emptyList()
-    );
+  private static StandardUsernamePasswordCredentials find(String credentialId, List<DomainRequirement> requirements) {
+    return CredentialsMatchers.firstOrNull(
+        CredentialsProvider.lookupCredentialsInItemGroup(StandardUsernamePasswordCredentials.class, Jenkins.get(),
+            ACL.SYSTEM2, requirements),
+        CredentialsMatchers.withId(credentialId));
+  }
+
+  /**
+   * Forgets every resolved credentials, so that the next use looks them up again.
+   */
+  public static void invalidate() {
+    CACHE.clear();
+  }
+
+  private static final class CachedCredentials {
+    final NullSafeCredentials credentials;
+    final long expiresAt = System.currentTimeMillis() + CACHE_TTL_MILLIS;
+
+    CachedCredentials(NullSafeCredentials credentials) {
+      this.credentials = credentials;
+    }
+
+    boolean isExpired() {
+      return System.currentTimeMillis() >= expiresAt;
+    }
+  }
+
+  /**
+   * Drops the resolved credentials when the global credentials, or any other credentials store, are saved.
+   */
+  @Extension
+  public static final class CacheInvalidator extends SaveableListener {
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+      if (o instanceof SystemCredentialsProvider || o instanceof CredentialsStore) {
+        invalidate();
+      }
+    }
   }
 
   public static final class NullSafeCredentials {
@@ -27,6 +27,7 @@ package org.jenkins.ci.plugins.jobimport.utils;
 import org.acegisecurity.AccessDeniedException;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.auth.AuthScope;
@@ -39,8 +40,7 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.impl.auth.BasicScheme;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.CloseableHttpClient;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -60,17 +60,33 @@ public final class URLUtils {
 
     /**
      *
+     * @param client The pooled client to send the request with
      * @param url The url to fetch
      * @param username The username to use while fetching the url
      * @param password The password to use while fetching the url
-     * @return The HttpResponse received.
+     * @return The HttpResponse received. It must be closed to release the connection.
      * @throws IOException If there was an issue in the communication with the server
      */
-    public static HttpResponse getUrl(String url, String username, String password) throws IOException {
+    public static CloseableHttpResponse getUrl(CloseableHttpClient client, String url, String username, String password) throws IOException {
+        return getUrl(client, url, username, password, null, null);
+    }
+
+    /**
+     * Like {@link #getUrl(CloseableHttpClient, String, String, String)}, but a conditional request when validators of
+     * a previous response are given.
+     *
+     * @param etag The {@code ETag} of the previous response, or {@code null}
+     * @param lastModified The {@code Last-Modified} of the previous response, or {@code null}
+     * @return The HttpResponse received, {@code 304} when the resource did not change. It must be closed to release the
+     * connection.
+     * @throws IOException If there was an issue in the communication with the server
+     */
+    public static CloseableHttpResponse getUrl(CloseableHttpClient client, String url, String username, String password,
+                                               String etag, String lastModified) throws IOException {
+        notNull(client);
         notNull(url);
         notNull(username);
         notNull(password);
-        HttpClientBuilder builder = HttpClients.custom();
         HttpClientContext localContext = HttpClientContext.create();
 
         URL _url = new URL(url);
@@ -82,7 +98,7 @@ public final class URLUtils {
                     new AuthScope(_url.getHost(), _url.getPort()),
                     new UsernamePasswordCredentials(username, password));
 
-            builder.setDefaultCredentialsProvider(credsProvider);
+            localContext.setCredentialsProvider(credsProvider);
 
             AuthCache authCache = new BasicAuthCache();
             // Generate BASIC scheme object and add it to the local
@@ -93,11 +109,18 @@ public final class URLUtils {
             localContext.setAuthCache(authCache);
 
         }
-        return builder.build().execute(target, new HttpGet(url), localContext);
+        HttpGet get = new HttpGet(url);
+        if (etag != null) {
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        return client.execute(target, get, localContext);
     }
     
-    public static InputStream fetchUrl(String url, String username, String password) throws IOException {
-        HttpResponse response = getUrl(url, username, password);
+    public static InputStream fetchUrl(CloseableHttpClient client, String url, String username, String password) throws IOException {
+        HttpResponse response = getUrl(client, url, username, password);
         return response.getEntity().getContent();
     }
 
@@ -0,0 +1,63 @@
+/*
+ * Polls the progress of a running import and refreshes its status table until the import has finished.
+ */
+(function () {
+  var POLL_INTERVAL = 1000;
+
+  function render(table, progress) {
+    var rootUrl = table.getAttribute("data-root-url") || "";
+    var tbody = table.tBodies[0];
+    while (tbody.firstChild) {
+      tbody.removeChild(tbody.firstChild);
+    }
+    progress.items.forEach(function (item) {
+      var row = document.createElement("tr");
+      var name = document.createElement("td");
+      var link = document.createElement("a");
+      link.target = "_blank";
+      link.href = rootUrl + "job/" + encodeURIComponent(item.name);
+      link.textContent = item.fullName;
+      name.appendChild(link);
+      var status = document.createElement("td");
+      status.textContent = item.status;
+      row.appendChild(name);
+      row.appendChild(status);
+      tbody.appendChild(row);
+    });
+    document.getElementById("job-import-state").textContent = progress.state;
+    var summary = document.getElementById("job-import-summary");
+    if (summary && progress.summary) {
+      summary.textContent = "New: " + progress.summary["new"] + ", changed: " + progress.summary.changed
+          + ", unchanged: " + progress.summary.unchanged + ", failed: " + progress.summary.failed;
+    }
+  }
+
+  function poll(table) {
+    var request = new XMLHttpRequest();
+    request.open("GET", table.getAttribute("data-progress-url"));
+    request.onload = function () {
+      if (request.status !== 200) {
+        return;
+      }
+      var progress = JSON.parse(request.responseText);
+      render(table, progress);
+      if (!progress.finished) {
+        setTimeout(function () { poll(table); }, POLL_INTERVAL);
+      }
+    };
+    request.send();
+  }
+
+  function start() {
+    var table = document.getElementById("job-import-status");
+    if (table) {
+      poll(table);
+    }
+  }
+
+  if (document.readyState === "loading") {
+    document.addEventListener("DOMContentLoaded", start);
+  } else {
+    start();
+  }
+})();
@@ -0,0 +1,169 @@
+/*
+ * Shows the remote items found by a query one page at a time. Folders are expanded on demand, and the filter searches
+ * every item found so far.
+ */
+(function () {
+  var FILTER_DELAY = 300;
+
+  function browse(table, params, callback) {
+    // the hidden fields of the import form describe the query: site, folder, recursion and filters
+    var query = [];
+    table.form.querySelectorAll("input[type=hidden][name]").forEach(function (input) {
+      query.push(encodeURIComponent(input.name) + "=" + encodeURIComponent(input.value));
+    });
+    Object.keys(params).forEach(function (name) {
+      query.push(name + "=" + encodeURIComponent(params[name]));
+    });
+    // browsing may list the remote with the site's credentials, so it is a POST carrying the crumb
+    var request = new XMLHttpRequest();
+    request.open("POST", table.getAttribute("data-browse-url"));
+    request.setRequestHeader("Content-Type", "application/x-www-form-urlencoded");
+    if (window.crumb && crumb.fieldName) {
+      request.setRequestHeader(crumb.fieldName, crumb.value);
+    }
+    request.onload = function () {
+      if (request.status === 200) {
+        callback(JSON.parse(request.responseText));
+      }
+    };
+    request.send(query.join("&"));
+  }
+
+  function checkbox(name, value) {
+    var input = document.createElement("input");
+    input.type = "checkbox";
+    input.name = name;
+    if (value !== undefined) {
+      input.value = value;
+    }
+    return input;
+  }
+
+  function cell(row, child) {
+    var td = document.createElement("td");
+    if (child !== undefined) {
+      td.appendChild(child);
+    }
+    row.appendChild(td);
+    return td;
+  }
+
+  /*
+   * Inserts one page of items before "anchor", then a "More..." row when items are left.
+   */
+  function render(table, params, depth, anchor, page) {
+    var tbody = table.tBodies[0];
+    var rows = [];
+    page.items.forEach(function (item) {
+      var row = document.createElement("tr");
+      row.setAttribute("data-depth", depth);
+      cell(row, checkbox("jobUrl", item.url));
+      cell(row, checkbox("disable-" + item.url));
+
+      var name = cell(row);
+      name.style.paddingLeft = (depth * 1.5) + "em";
+      if (item.folder && !params.filter) {
+        var toggle = document.createElement("button");
+        toggle.type = "button";
+        toggle.className = "job-import-toggle";
+        toggle.textContent = "+";
+        toggle.addEventListener("click", function () {
+          expand(table, row, toggle, item, depth + 1);
+        });
+        name.appendChild(toggle);
+      }
+      var link = document.createElement("a");
+      link.target = "_blank";
+      link.href = item.url;
+      link.textContent = params.filter ? item.fullName : item.name;
+      name.appendChild(link);
+
+      cell(row).textContent = item.description;
+      tbody.insertBefore(row, anchor);
+      rows.push(row);
+    });
+
+    var next = page.offset + page.items.length;
+    if (next < page.total) {
+      var more = document.createElement("tr");
+      more.setAttribute("data-depth", depth);
+      var button = document.createElement("button");
+      button.type = "button";
+      button.textContent = table.getAttribute("data-more");
+      button.addEventListener("click", function () {
+        var nextParams = Object.assign({}, params, { offset: next });
+        browse(table, nextParams, function (nextPage) {
+          render(table, nextParams, depth, more.nextSibling, nextPage);
+          tbody.removeChild(more);
+        });
+      });
+      var td = cell(more, button);
+      td.colSpan = 4;
+      td.style.paddingLeft = (depth * 1.5) + "em";
+      tbody.insertBefore(more, anchor);
+      rows.push(more);
+    }
+    return rows;
+  }
+
+  function expand(table, row, toggle, item, depth) {
+    if (toggle.getAttribute("data-open") === "true") {
+      // remove everything nested below this folder
+      var next = row.nextSibling;
+      while (next && Number(next.getAttribute("data-depth")) >= depth) {
+        var remove = next;
+        next = next.nextSibling;
+        remove.parentNode.removeChild(remove);
+      }
+      toggle.setAttribute("data-open", "false");
+      toggle.textContent = "+";
+      return;
+    }
+    toggle.disabled = true;
+    browse(table, { parent: item.url }, function (page) {
+      render(table, { parent: item.url }, depth, row.nextSibling, page);
+      toggle.setAttribute("data-open", "true");
+      toggle.textContent = "-";
+      toggle.disabled = false;
+    });
+  }
+
+  function reload(table, filter) {
+    var tbody = table.tBodies[0];
+    while (tbody.firstChild) {
+      tbody.removeChild(tbody.firstChild);
+    }
+    var params = filter ? { filter: filter } : {};
+    browse(table, params, function (page) {
+      render(table, params, 0, null, page);
+    });
+  }
+
+  function start() {
+    var table = document.getElementById("job-import-browser");
+    if (!table) {
+      return;
+    }
+    var filter = document.getElementById("job-import-filter");
+    var timer;
+    if (filter) {
+      filter.addEventListener("input", function () {
+        clearTimeout(timer);
+        timer = setTimeout(function () { reload(table, filter.value.trim()); }, FILTER_DELAY);
+      });
+      // the filter lives in the import form, Enter must not submit it
+      filter.addEventListener("keydown", function (event) {
+        if (event.key === "Enter") {
+          event.preventDefault();
+        }
+      });
+    }
+    reload(table, "");
+  }
+
+  if (document.readyState === "loading") {
+    document.addEventListener("DOMContentLoaded", start);
+  } else {
+    start();
+  }
+})();
@@ -0,0 +1,36 @@
+package jmh;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every class annotated with {@link jenkins.benchmark.jmh.JmhBenchmark}, see the {@code benchmark} profile.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = ".*")
+class BenchmarkRunner {
+
+  @Test
+  void runJmhBenchmarks() throws Exception {
+    ChainedOptionsBuilder options = new OptionsBuilder()
+        .mode(Mode.AverageTime)
+        .timeUnit(TimeUnit.MILLISECONDS)
+        .warmupIterations(2)
+        .measurementIterations(5)
+        .forks(1)
+        .shouldFailOnError(true)
+        .shouldDoGC(true)
+        .resultFormat(ResultFormatType.JSON)
+        .result("target/jmh-report.json");
+
+    new BenchmarkFinder(getClass()).findBenchmarks(options);
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,91 @@
+package org.jenkins.ci.plugins.jobimport;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import hudson.model.Item;
+import hudson.security.ACL;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * Imports {@code jobs} generated freestyle jobs from a local WireMock stub into a real Jenkins. The remote listing is
+ * cached after the first invocation, just like it is for an import that follows a query.
+ */
+@JmhBenchmark
+public class ImportBenchmark {
+
+  private static final String CONFIG_XML = "<?xml version='1.1' encoding='UTF-8'?>\n"
+      + "<project><description>Generated</description><keepDependencies>false</keepDependencies>"
+      + "<properties/><scm class=\"hudson.scm.NullSCM\"/><canRoam>true</canRoam><disabled>false</disabled>"
+      + "<triggers/><concurrentBuild>false</concurrentBuild><builders/><publishers/><buildWrappers/></project>";
+
+  public static class RemoteSite extends JmhBenchmarkState {
+    @Param({"500"})
+    public int jobs;
+
+    WireMockServer wireMock;
+    JenkinsSite site;
+    List<String> jobUrls;
+
+    @Override
+    public void setup() throws Exception {
+      wireMock = new WireMockServer(options().dynamicPort());
+      wireMock.start();
+
+      jobUrls = new ArrayList<>(jobs);
+      final StringBuilder listing = new StringBuilder("<hudson _class=\"hudson.model.Hudson\">");
+      for (int i = 0; i < jobs; i++) {
+        final String url = wireMock.baseUrl() + "/job/job-" + i + "/";
+        jobUrls.add(url);
+        listing.append("<job _class=\"hudson.model.FreeStyleProject\"><name>job-").append(i)
+            .append("</name><url>").append(url).append("</url></job>");
+      }
+      listing.append("</hudson>");
+
+      wireMock.stubFor(get(urlPathEqualTo("/api/xml"))
+          .willReturn(aResponse().withHeader("Content-Type", "application/xml").withBody(listing.toString())));
+      wireMock.stubFor(get(urlPathMatching("/job/job-[0-9]+/+config\\.xml"))
+          .willReturn(aResponse().withHeader("Content-Type", "application/xml").withBody(CONFIG_XML)));
+
+      site = new JenkinsSite("Benchmark", wireMock.baseUrl());
+      JobImportGlobalConfig.get().setSites(List.of(site));
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteImportedJobs() throws Exception {
+      for (Item item : Jenkins.get().getItems()) {
+        item.delete();
+      }
+    }
+
+    @Override
+    public void tearDown() {
+      wireMock.stop();
+    }
+  }
+
+  @Benchmark
+  public SortedMap<RemoteItem, RemoteItemImportStatus> importJobs(RemoteSite remote) {
+    final ImportTask task = new ImportTask(ACL.SYSTEM2, remote.site, remote.site.getUrl(), false, RemoteItemFilter.ALL, "",
+        remote.jobUrls, false, false, false, false);
+    task.run();
+    return task.getRemoteJobsImportStatus();
+  }
+}
@@ -1,16 +1,71 @@
 package org.jenkins.ci.plugins.jobimport;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.cli.CLICommandInvoker;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.User;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.Page;
+import org.htmlunit.WebRequest;
+import org.htmlunit.util.NameValuePair;
+import org.jenkins.ci.plugins.jobimport.client.RestApiClient;
+import org.jenkins.ci.plugins.jobimport.client.SiteClient;
 import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.model.RewriteRule;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static hudson.cli.CLICommandInvoker.Matcher.succeeded;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Created by evildethow on 29/06/2016.
@@ -27,6 +82,8 @@ class JobImportActionTest {
 
   @BeforeEach
   void beforeEach(JenkinsRule rule) throws Exception {
+    // the site clients outlive a test, drop what earlier tests listed
+    SiteClient.retain(List.of());
     JobImportGlobalConfig.get().setSites(List.of(new JenkinsSite("Test Site", wireMock.baseUrl())));
 
     client = new JobImportClient(rule.createWebClient());
@@ -45,4 +102,430 @@ class JobImportActionTest {
 
     remoteJenkins.verifyImported(recursiveSearch);
   }
+
+  @Test
+  void importJobsCommand(JenkinsRule rule) throws Exception {
+    String manifest = "{\"site\": \"Test Site\", \"sources\": [\"job\"]}";
+
+    CLICommandInvoker.Result result = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+
+    assertThat(result, succeeded());
+    assertNotNull(rule.jenkins.getItem("job"));
+
+    String[] lines = result.stdout().trim().split("\n");
+    assertEquals(3, lines.length);
+    assertEquals("NEW", JSONObject.fromObject(lines[1]).getString("outcome"));
+    JSONObject end = JSONObject.fromObject(lines[2]);
+    assertTrue(end.getBoolean("finished"));
+    assertEquals(1, end.getJSONObject("summary").getInt("new"));
+  }
+
+  @Test
+  void importJobsCommandWithOverlappingSources(JenkinsRule rule) throws Exception {
+    String manifest = "{\"site\": \"Test Site\", "
+        + "\"sources\": [\"folder/aFreestyle*\", \"folder/aFreestyleJobInFolder\"]}";
+
+    CLICommandInvoker.Result result = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+
+    assertThat(result, succeeded());
+    assertNotNull(rule.jenkins.getItem("aFreestyleJobInFolder"));
+    String[] lines = result.stdout().trim().split("\n");
+    // the item both sources match is imported once
+    assertEquals(3, lines.length);
+    assertEquals(1, JSONObject.fromObject(lines[2]).getJSONObject("summary").getInt("new"));
+  }
+
+  @Test
+  void syncOnlyImportsChangedJobs(JenkinsRule rule) throws Exception {
+    rule.jenkins.createProject(Folder.class, "other");
+
+    assertEquals("NEW", syncJob(rule, ""));
+    assertEquals("UNCHANGED", syncJob(rule, ""));
+
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml"))
+        .willReturn(aResponse().withStatus(200).withBody("<project><description>changed</description></project>")));
+    assertEquals("CHANGED", syncJob(rule, ""));
+    assertEquals("changed", rule.jenkins.getItemByFullName("job", FreeStyleProject.class).getDescription());
+
+    // synced to another folder, the same remote job is created there as well
+    assertEquals("NEW", syncJob(rule, "other"));
+    assertNotNull(rule.jenkins.getItemByFullName("other/job"));
+    assertEquals("UNCHANGED", syncJob(rule, ""));
+
+    rule.jenkins.getItem("job").delete();
+    assertEquals("NEW", syncJob(rule, ""));
+  }
+
+  @Test
+  void syncReappliesChangedRewriteRules(JenkinsRule rule) throws Exception {
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml"))
+        .willReturn(aResponse().withStatus(200).withBody("<project><description>legacy</description></project>")));
+    assertEquals("NEW", syncJob(rule, ""));
+
+    JobImportGlobalConfig.get().setRewriteRules(List.of(new RewriteRule("description", "legacy", "migrated")));
+    assertEquals("CHANGED", syncJob(rule, ""));
+    assertEquals("migrated", rule.jenkins.getItemByFullName("job", FreeStyleProject.class).getDescription());
+    assertEquals("UNCHANGED", syncJob(rule, ""));
+  }
+
+  /**
+   * @return The outcome of syncing the remote job {@code job} into {@code destination}.
+   */
+  private static String syncJob(JenkinsRule rule, String destination) {
+    String manifest = JSONObject.fromObject(Map.of("site", "Test Site", "sources", List.of("job"), "sync", true,
+        "destination", destination)).toString();
+    CLICommandInvoker.Result result = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+    assertThat(result, succeeded());
+    return JSONObject.fromObject(result.stdout().trim().split("\n")[1]).getString("outcome");
+  }
+
+  @Test
+  void crawlBuildsTheWholeTree(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    RemoteItemIndex index = RestApiClient.discover(SiteClient.of(site), site.getUrl(),
+        CredentialsUtils.getCredentials(null, null), true, RemoteItemFilter.ALL, true);
+
+    assertEquals(Set.of("folder", "folder/aFolder", "folder/aFolder/bFreestyleJobInFolder",
+        "folder/aFolder/bMavenJobInFolder", "folder/aFreestyleJobInFolder", "folder/aMavenJobInFolder", "job"),
+        index.getAllItems().stream().map(RemoteItem::getFullName).collect(Collectors.toSet()));
+    RemoteFolder aFolder = assertInstanceOf(RemoteFolder.class, index.getByFullName("folder/aFolder"));
+    assertSame(index.getByFullName("folder"), aFolder.getParent());
+    assertEquals(List.of("folder/aFolder/bFreestyleJobInFolder", "folder/aFolder/bMavenJobInFolder"),
+        aFolder.getChildren().stream().map(RemoteItem::getFullName).collect(Collectors.toList()));
+    wireMock.verify(1, getRequestedFor(urlEqualTo("/job/folder/job/aFolder/" + Constants.XML_API_QUERY)));
+  }
+
+  @Test
+  void crawlSkipsFoldersTheFilterRejects(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    RemoteItemIndex index = RestApiClient.discover(SiteClient.of(site), site.getUrl(),
+        CredentialsUtils.getCredentials(null, null), true,
+        new RemoteItemFilter(null, "folder/aFolder", false, null, null), true);
+
+    assertNull(index.getByFullName("folder/aFolder"));
+    assertNotNull(index.getByFullName("folder/aFreestyleJobInFolder"));
+    wireMock.verify(0, getRequestedFor(urlEqualTo("/job/folder/job/aFolder/" + Constants.XML_API_QUERY)));
+  }
+
+  @Test
+  void crawlListsSeveralLevelsPerRequest(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    site.setTreeDepth(2);
+    String base = wireMock.baseUrl();
+    wireMock.stubFor(get(urlEqualTo("/" + Constants.xmlApiQuery(2))).willReturn(aResponse().withStatus(200).withBody(
+        "<hudson>"
+        + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\">"
+        + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\"><name>aFolder</name><url>" + base + "/job/folder/job/aFolder/</url></job>"
+        + "<job _class=\"hudson.model.FreeStyleProject\"><name>aFreestyleJobInFolder</name><url>" + base + "/job/folder/job/aFreestyleJobInFolder/</url></job>"
+        + "<name>folder</name><url>" + base + "/job/folder/</url>"
+        + "</job>"
+        + "<job _class=\"hudson.model.FreeStyleProject\"><name>job</name><url>" + base + "/job/job/</url></job>"
+        + "</hudson>")));
+    wireMock.stubFor(get(urlEqualTo("/job/folder/job/aFolder/" + Constants.xmlApiQuery(2))).willReturn(aResponse()
+        .withStatus(200).withBody("<folder><job _class=\"hudson.model.FreeStyleProject\"><name>deep</name><url>" + base
+            + "/job/folder/job/aFolder/job/deep/</url></job></folder>")));
+
+    RemoteItemIndex index = RestApiClient.discover(SiteClient.of(site), site.getUrl(),
+        CredentialsUtils.getCredentials(null, null), true, RemoteItemFilter.ALL, true);
+
+    assertEquals(Set.of("folder", "folder/aFolder", "folder/aFolder/deep", "folder/aFreestyleJobInFolder", "job"),
+        index.getAllItems().stream().map(RemoteItem::getFullName).collect(Collectors.toSet()));
+    // the folder came with the top level, only the folder cut off at the second level was requested again
+    wireMock.verify(1, getRequestedFor(urlEqualTo("/" + Constants.xmlApiQuery(2))));
+    wireMock.verify(0, getRequestedFor(urlEqualTo("/job/folder/" + Constants.xmlApiQuery(2))));
+    wireMock.verify(1, getRequestedFor(urlEqualTo("/job/folder/job/aFolder/" + Constants.xmlApiQuery(2))));
+  }
+
+  @Test
+  void browseRefusesGet(JenkinsRule rule) throws Exception {
+    JenkinsRule.WebClient webClient = rule.createWebClient();
+    webClient.setThrowExceptionOnFailingStatusCode(false);
+
+    Page page = webClient.goTo(Constants.URL_NAME + "/browse?remoteJenkins=Test%20Site", null);
+
+    assertEquals(405, page.getWebResponse().getStatusCode());
+    assertEquals(0, wireMock.getAllServeEvents().size());
+  }
+
+  @Test
+  void browseOpensFoldersLazily(JenkinsRule rule) throws Exception {
+    JenkinsRule.WebClient webClient = rule.createWebClient();
+
+    JSONObject top = browse(rule, webClient, Map.of());
+    assertEquals(2, top.getInt("total"));
+    JSONObject folder = top.getJSONArray("items").getJSONObject(0);
+    assertEquals("folder", folder.getString("name"));
+    assertTrue(folder.getBoolean("folder"));
+    wireMock.verify(0, getRequestedFor(urlEqualTo("/job/folder/" + Constants.XML_API_QUERY)));
+
+    JSONObject content = browse(rule, webClient, Map.of("parent", folder.getString("url")));
+    assertEquals(3, content.getInt("total"));
+    assertEquals("aFolder", content.getJSONArray("items").getJSONObject(0).getString("name"));
+    browse(rule, webClient, Map.of("parent", folder.getString("url")));
+    wireMock.verify(1, getRequestedFor(urlEqualTo("/job/folder/" + Constants.XML_API_QUERY)));
+
+    JSONObject page = browse(rule, webClient, Map.of("parent", folder.getString("url"), "offset", "1", "limit", "1"));
+    assertEquals(3, page.getInt("total"));
+    assertEquals(1, page.getInt("offset"));
+    assertEquals(1, page.getJSONArray("items").size());
+    assertEquals("aFreestyleJobInFolder", page.getJSONArray("items").getJSONObject(0).getString("name"));
+  }
+
+  /**
+   * @return One page of the browser for the test site, as the import page asks for it.
+   */
+  private static JSONObject browse(JenkinsRule rule, JenkinsRule.WebClient webClient, Map<String, String> params)
+      throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    List<NameValuePair> parameters = new ArrayList<>();
+    parameters.add(new NameValuePair("remoteJenkins",
+        site.getName() + "-" + site.getUrl() + "-" + site.getDefaultCredentialsId()));
+    params.forEach((name, value) -> parameters.add(new NameValuePair(name, value)));
+    WebRequest request = new WebRequest(new URL(rule.getURL(), Constants.URL_NAME + "/browse"), HttpMethod.POST);
+    request.setRequestParameters(parameters);
+    webClient.addCrumb(request);
+    return JSONObject.fromObject(webClient.getPage(request).getWebResponse().getContentAsString());
+  }
+
+  @Test
+  void refreshListsTheRemoteAgain(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    SiteClient siteClient = SiteClient.of(site);
+    CredentialsUtils.NullSafeCredentials credentials = CredentialsUtils.getCredentials(null, null);
+
+    RestApiClient.discover(siteClient, site.getUrl(), credentials, false, RemoteItemFilter.ALL, true);
+    RestApiClient.discover(siteClient, site.getUrl(), credentials, false, RemoteItemFilter.ALL, true);
+    remoteJenkins.verifyTopLevelQueried(2);
+
+    // without refresh the last listing is reused
+    RestApiClient.discover(siteClient, site.getUrl(), credentials, false, RemoteItemFilter.ALL, false);
+    remoteJenkins.verifyTopLevelQueried(2);
+  }
+
+  @Test
+  void queryListsTheRemoteAgainOnlyWhenAsked() throws Exception {
+    client.doQuerySubmit(false);
+    client.doQuerySubmit(false);
+    remoteJenkins.verifyTopLevelQueried(1);
+
+    client.doQuerySubmit(false, true);
+    remoteJenkins.verifyTopLevelQueried(2);
+  }
+
+  @Test
+  void indexAnswersRecentListings(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    SiteClient siteClient = SiteClient.of(site);
+    CredentialsUtils.NullSafeCredentials credentials = CredentialsUtils.getCredentials(null, null);
+    RestApiClient.discover(siteClient, site.getUrl(), credentials, false, RemoteItemFilter.ALL, true);
+
+    List<RemoteItem> indexed = RestApiClient.getRemoteItems(siteClient, null, site.getUrl(), credentials, false,
+        RemoteItemFilter.ALL);
+    assertEquals(List.of("folder", "job"), indexed.stream().map(RemoteItem::getFullName).sorted().collect(Collectors.toList()));
+    assertTrue(indexed.get(0) instanceof RemoteFolder || indexed.get(1) instanceof RemoteFolder);
+    remoteJenkins.verifyTopLevelQueried(1);
+
+    RestApiClient.getRemoteItems(siteClient, null, site.getUrl(), credentials, false, RemoteItemFilter.ALL, true);
+    remoteJenkins.verifyTopLevelQueried(2);
+  }
+
+  @Test
+  void importReusesTheQueriedTree(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    String jobUrl = RestApiClient.discover(SiteClient.of(site), site.getUrl(), CredentialsUtils.getCredentials(null, null),
+        false, RemoteItemFilter.ALL, true).getByFullName("job").getUrl();
+    wireMock.resetRequests();
+
+    ImportTask task = new ImportTask(ACL.SYSTEM2, site, site.getUrl(), false, RemoteItemFilter.ALL, "",
+        List.of(jobUrl), false, false, false, false);
+    task.run();
+
+    assertNotNull(rule.jenkins.getItem("job"));
+    remoteJenkins.verifyTopLevelQueried(0);
+  }
+
+  @Test
+  void importersMayNotInstallPlugins(JenkinsRule rule) throws Exception {
+    rule.jenkins.setSecurityRealm(rule.createDummySecurityRealm());
+    rule.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+        .grant(Jenkins.READ, JobImportAction.JOB_IMPORT).everywhere().to("importer"));
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+
+    JenkinsRule.WebClient webClient = rule.createWebClient().login("importer");
+    webClient.setThrowExceptionOnFailingStatusCode(false);
+    WebRequest request = new WebRequest(new URL(rule.getURL(), Constants.URL_NAME + "/import"), HttpMethod.POST);
+    request.setRequestParameters(List.of(
+        new NameValuePair("remoteJenkins", site.getName() + "-" + site.getUrl() + "-" + site.getDefaultCredentialsId()),
+        new NameValuePair("plugins", "on")));
+    webClient.addCrumb(request);
+    assertEquals(403, webClient.getPage(request).getWebResponse().getStatusCode());
+
+    // a resumed import runs as the user who started it, who may have lost the permission since
+    String jobUrl = RestApiClient.discover(SiteClient.of(site), site.getUrl(), CredentialsUtils.getCredentials(null, null),
+        false, RemoteItemFilter.ALL, false).getByFullName("job").getUrl();
+    ImportTask task = new ImportTask(User.getById("importer", true).impersonate2(), site, site.getUrl(), false,
+        RemoteItemFilter.ALL, "", List.of(jobUrl), true, false, false, false);
+    task.run();
+
+    assertNull(rule.jenkins.getItem("job"));
+    RemoteItemImportStatus status = task.getRemoteJobsImportStatus().values().iterator().next();
+    assertNull(status.getOutcome());
+    assertNotNull(status.getStatus());
+  }
+
+  @Test
+  void resumeSkipsImportedItems(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    String jobUrl = RestApiClient.discover(SiteClient.of(site), site.getUrl(), CredentialsUtils.getCredentials(null, null),
+        false, RemoteItemFilter.ALL, true).getByFullName("job").getUrl();
+
+    // a first run imports the job and is interrupted before it records anything else
+    List<RemoteItemImportStatus> imported = new ArrayList<>();
+    ImportTask first = new ImportTask(ACL.SYSTEM2, site, site.getUrl(), false, RemoteItemFilter.ALL, "",
+        List.of(jobUrl), false, false, false, false);
+    first.setListener(imported::add);
+    first.run();
+    assertNotNull(rule.jenkins.getItem("job"));
+    assertNull(ImportJournal.load(first.getId()), "a complete import leaves no journal");
+
+    ImportJournal journal = new ImportJournal(UUID.randomUUID().toString(), ACL.SYSTEM2.getName(), site.getUrl(),
+        site.getUrl(), false, RemoteItemFilter.ALL, "", List.of(jobUrl), false, false, false, false);
+    journal.open(imported);
+    journal.close(false);
+    wireMock.resetRequests();
+
+    ImportTask resumed = ImportTask.resume(ACL.SYSTEM2, site, ImportJournal.load(journal.getId()));
+    resumed.run();
+
+    wireMock.verify(0, getRequestedFor(urlEqualTo("/job/job/config.xml")));
+    RemoteItemImportStatus status = resumed.getRemoteJobsImportStatus().values().iterator().next();
+    assertEquals(RemoteItemImportStatus.Outcome.NEW, status.getOutcome());
+    assertEquals("job", status.getLocalFullName());
+    assertNull(ImportJournal.load(journal.getId()));
+  }
+
+  @Test
+  void atomicImportRollsBackFailedFolder(JenkinsRule rule) throws Exception {
+    JenkinsSite site = JobImportGlobalConfig.get().getSites().get(0);
+    String folderUrl = RestApiClient.discover(SiteClient.of(site), site.getUrl(), CredentialsUtils.getCredentials(null, null),
+        true, RemoteItemFilter.ALL, true).getByFullName("folder").getUrl();
+
+    // the Maven jobs in the folder cannot be created without the Maven plugin
+    ImportTask task = new ImportTask(ACL.SYSTEM2, site, site.getUrl(), true, RemoteItemFilter.ALL, "",
+        List.of(folderUrl), false, false, false, true);
+    task.run();
+
+    assertNull(rule.jenkins.getItem("folder"));
+    for (RemoteItemImportStatus status : task.getRemoteJobsImportStatus().values()) {
+      assertNull(status.getOutcome(), status.getRemoteFullName());
+    }
+  }
+
+  @Test
+  void exportedBundleImportsWithoutTheRemote(JenkinsRule rule, @TempDir Path dir) throws Exception {
+    String manifest = "{\"site\": \"Test Site\", \"sources\": [\"job\"]}";
+    CLICommandInvoker.Result exported = new CLICommandInvoker(rule, "export-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+    assertThat(exported, succeeded());
+    assertNull(rule.jenkins.getItem("job"));
+
+    Path bundle = Files.write(dir.resolve("bundle.zip"), exported.stdoutBinary());
+    wireMock.resetRequests();
+
+    String bundleManifest = JSONObject.fromObject(Map.of("bundle", bundle.toString())).toString();
+    CLICommandInvoker.Result imported = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(bundleManifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+
+    assertThat(imported, succeeded());
+    assertNotNull(rule.jenkins.getItem("job"));
+    assertEquals(0, wireMock.getAllServeEvents().size());
+  }
+
+  @Test
+  void importsFromAnotherJenkinsHome(JenkinsRule rule, @TempDir Path dir) throws Exception {
+    Folder folder = rule.jenkins.createProject(Folder.class, "team");
+    folder.createProject(FreeStyleProject.class, "build").setDescription("nightly");
+    FreeStyleProject pipelines = rule.createFreeStyleProject("pipelines");
+    Path jobs = dir.resolve("jobs");
+    FileUtils.copyDirectory(rule.jenkins.getRootDir().toPath().resolve("jobs").toFile(), jobs.toFile());
+    // like a multibranch project, a job that is no folder keeps generated items in jobs
+    Path branch = Files.createDirectories(jobs.resolve("pipelines/jobs/main"));
+    Files.copy(jobs.resolve("pipelines/config.xml"), branch.resolve("config.xml"));
+    folder.delete();
+    pipelines.delete();
+
+    String manifest = JSONObject.fromObject(Map.of("bundle", dir.toString(), "sources", List.of("team", "pipelines")))
+        .toString();
+    CLICommandInvoker.Result imported = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+
+    assertThat(imported, succeeded());
+    FreeStyleProject job = assertInstanceOf(FreeStyleProject.class, rule.jenkins.getItemByFullName("team/build"));
+    assertEquals("nightly", job.getDescription());
+    assertInstanceOf(Folder.class, rule.jenkins.getItem("team"));
+    assertInstanceOf(FreeStyleProject.class, rule.jenkins.getItem("pipelines"));
+    assertFalse(imported.stdout().contains("pipelines/main"), imported.stdout());
+  }
+
+  @Test
+  void importWritesEveryItemOnce(JenkinsRule rule, @TempDir Path dir) throws Exception {
+    Folder folder = rule.jenkins.createProject(Folder.class, "team");
+    folder.setDescription("platform team");
+    Folder nested = folder.createProject(Folder.class, "backend");
+    List<String> imported = new ArrayList<>(List.of("team", "team/backend"));
+    for (int i = 0; i < 5; i++) {
+      imported.add(nested.createProject(FreeStyleProject.class, "job-" + i).getFullName());
+    }
+    FileUtils.copyDirectory(rule.jenkins.getRootDir().toPath().resolve("jobs").toFile(), dir.resolve("jobs").toFile());
+    folder.delete();
+    WriteCounter counter = rule.jenkins.getExtensionList(SaveableListener.class).get(WriteCounter.class);
+    counter.saves.clear();
+    counter.creations.clear();
+
+    String manifest = JSONObject.fromObject(Map.of("bundle", dir.toString())).toString();
+    CLICommandInvoker.Result result = new CLICommandInvoker(rule, "import-jobs")
+        .withStdin(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))
+        .invoke();
+
+    assertThat(result, succeeded());
+    for (String name : imported) {
+      // createProjectFromXML writes the configuration, the held back saves of a folder are written once after it
+      int expectedSaves = rule.jenkins.getItemByFullName(name) instanceof Folder ? 1 : 0;
+      assertEquals(1, counter.creations.getOrDefault(name, 0), name + " creations");
+      assertEquals(expectedSaves, counter.saves.getOrDefault(name, 0), name + " saves");
+    }
+    Folder team = assertInstanceOf(Folder.class, rule.jenkins.getItem("team"));
+    assertEquals("platform team", team.getDescription());
+    assertEquals(Files.readString(dir.resolve("jobs/team/config.xml")), team.getConfigFile().asString());
+  }
+
+  @TestExtension("importWritesEveryItemOnce")
+  public static class WriteCounter extends SaveableListener {
+    final Map<String, Integer> saves = new ConcurrentHashMap<>();
+    final Map<String, Integer> creations = new ConcurrentHashMap<>();
+
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+      if (o instanceof Item) {
+        saves.merge(((Item) o).getFullName(), 1, Integer::sum);
+      }
+    }
+  }
+
+  @TestExtension("importWritesEveryItemOnce")
+  public static class CreationCounter extends ItemListener {
+    @Override
+    public void onCreated(Item item) {
+      ExtensionList.lookupSingleton(WriteCounter.class).creations.merge(item.getFullName(), 1, Integer::sum);
+    }
+  }
 }
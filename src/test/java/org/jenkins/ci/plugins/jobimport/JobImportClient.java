@@ -1,6 +1,8 @@
 package org.jenkins.ci.plugins.jobimport;
 
+import net.sf.json.JSONObject;
 import org.htmlunit.FailingHttpStatusCodeException;
+import org.htmlunit.Page;
 import org.htmlunit.html.*;
 import org.jenkins.ci.plugins.jobimport.utils.Constants;
 import org.jvnet.hudson.test.JenkinsRule;
@@ -13,19 +15,32 @@ class JobImportClient {
 
   private static final int IMPORT_SUBMIT_RETRY = 5;
   private static final long IMPORT_SUBMIT_RETRY_WAIT_TIME = 1000L;
+  private static final int IMPORT_FINISHED_POLL = 60;
+  private static final long IMPORT_FINISHED_POLL_WAIT_TIME = 500L;
+  private static final long BROWSE_WAIT_TIME = 10000L;
 
+  private final JenkinsRule.WebClient webClient;
   private HtmlPage currentPage;
 
   JobImportClient(JenkinsRule.WebClient webClient) throws Exception {
+    this.webClient = webClient;
     this.currentPage = webClient.goTo(Constants.URL_NAME);
   }
 
   void doQuerySubmit(boolean recursiveSearch) throws Exception {
+    doQuerySubmit(recursiveSearch, false);
+  }
+
+  void doQuerySubmit(boolean recursiveSearch, boolean refresh) throws Exception {
     HtmlCheckBoxInput recursiveSearchInput = (HtmlCheckBoxInput) currentPage.getElementsByName(Constants.RECURSIVE_PARAM).get(0);
     recursiveSearchInput.setChecked(recursiveSearch);
+    HtmlCheckBoxInput refreshInput = (HtmlCheckBoxInput) currentPage.getElementsByName(Constants.REFRESH_PARAM).get(0);
+    refreshInput.setChecked(refresh);
 
     HtmlForm form = currentPage.getFormByName("query");
     currentPage = form.getInputByValue("Query!").click();
+    // the remote items are loaded by the page once it is shown
+    webClient.waitForBackgroundJavaScript(BROWSE_WAIT_TIME);
   }
 
   void selectJobs() {
@@ -36,6 +51,19 @@ class JobImportClient {
 
   void doImportSubmit() throws Exception {
     doImportSubmitWithRetry(IMPORT_SUBMIT_RETRY);
+    waitForImportToFinish();
+  }
+
+  private void waitForImportToFinish() throws Exception {
+    String progressUrl = currentPage.getUrl().toString() + "progress";
+    for (int i = 0; i < IMPORT_FINISHED_POLL; i++) {
+      Page progress = webClient.getPage(progressUrl);
+      if (JSONObject.fromObject(progress.getWebResponse().getContentAsString()).getBoolean("finished")) {
+        return;
+      }
+      Thread.sleep(IMPORT_FINISHED_POLL_WAIT_TIME);
+    }
+    throw new AssertionError("Import did not finish: " + progressUrl);
   }
 
   private void doImportSubmitWithRetry(int retry) throws Exception {
@@ -132,6 +132,10 @@ class RemoteJenkins {
     }
   }
 
+  void verifyTopLevelQueried(int count) {
+    wireMock.verify(count, getRequestedFor(urlEqualTo(TOP_LVL_QUERY.startsWith("/") ? TOP_LVL_QUERY : "/" + TOP_LVL_QUERY)));
+  }
+
   private void verifyGetRequest(String url) {
     wireMock.verify(getRequestedFor(urlEqualTo(url.startsWith("/") ? url : "/" + url)));
   }
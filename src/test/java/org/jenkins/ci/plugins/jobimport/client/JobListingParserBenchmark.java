@@ -0,0 +1,96 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+/**
+ * Compares the streaming listing parser with the DOM based parsing it replaced.
+ */
+@JmhBenchmark
+public class JobListingParserBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Listing {
+    @Param({"50000"})
+    public int jobs;
+
+    @Param({"1", "3"})
+    public int depth;
+
+    byte[] xml;
+
+    @Setup
+    public void setup() {
+      xml = SyntheticListing.xml(jobs, depth);
+    }
+  }
+
+  @Benchmark
+  public List<RemoteItem> stax(Listing listing) throws Exception {
+    FolderListing result = new FolderListing(null);
+    JobListingParser.parse(new ByteArrayInputStream(listing.xml), null, listing.depth, result);
+    return result.items;
+  }
+
+  @Benchmark
+  public List<RemoteItem> dom(Listing listing) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    Document doc = factory.newDocumentBuilder().parse(new ByteArrayInputStream(listing.xml));
+
+    FolderListing result = new FolderListing(null);
+    collect(doc.getDocumentElement(), null, 1, listing.depth, result);
+    return result.items;
+  }
+
+  private static void collect(Element container, RemoteFolder parent, int level, int depth, FolderListing listing) {
+    for (Node node = container.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node.getNodeType() != Node.ELEMENT_NODE || !"job".equals(node.getNodeName())) {
+        continue;
+      }
+      Element job = (Element) node;
+      String impl = job.getAttribute("_class");
+      String desc = childText(job, "description");
+      String jobUrl = childText(job, "url");
+      String name = childText(job, "name");
+
+      if (JobListingParser.FOLDER_CLASS.equals(impl)) {
+        RemoteFolder item = new RemoteFolder(name, impl, jobUrl, desc, parent);
+        listing.items.add(item);
+        if (level < depth) {
+          collect(job, item, level + 1, depth, listing);
+        } else {
+          listing.truncated.add(item);
+        }
+      } else {
+        listing.items.add(new RemoteJob(name, impl, jobUrl, desc, parent));
+      }
+    }
+  }
+
+  /**
+   * Only looks at direct children, so that nested job listings are not mistaken for properties of their folder.
+   */
+  private static String childText(Element e, String name) {
+    for (Node node = e.getFirstChild(); node != null; node = node.getNextSibling()) {
+      if (node.getNodeType() == Node.ELEMENT_NODE && name.equals(node.getNodeName())) {
+        return node.getTextContent();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,114 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobListingParserTest {
+
+  private static final String NESTED =
+      "<hudson>"
+      + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\">"
+      + "<description>a &amp; b</description>"
+      + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\">"
+      + "<description/>"
+      + "<job _class=\"hudson.model.FreeStyleProject\"><name>deep</name><url>http://remote/job/folder/job/sub/job/deep/</url></job>"
+      + "<name>sub</name><url>http://remote/job/folder/job/sub/</url>"
+      + "</job>"
+      + "<name>folder</name><url>http://remote/job/folder/</url>"
+      + "</job>"
+      + "<job><description/><name>job</name><url>http://remote/job/job/</url></job>"
+      + "</hudson>";
+
+  @Test
+  void parsesOneLevel() throws Exception {
+    FolderListing listing = parse(NESTED, 1);
+
+    assertEquals(2, listing.items.size());
+    assertEquals("folder", listing.items.get(0).getFullName());
+    assertEquals("a &amp; b", listing.items.get(0).getDescription());
+    assertEquals("job", listing.items.get(1).getFullName());
+    assertEquals(1, listing.truncated.size());
+    assertSame(listing.items.get(0), listing.truncated.get(0));
+  }
+
+  @Test
+  void parsesNestedLevelsParentsFirst() throws Exception {
+    FolderListing listing = parse(NESTED, 3);
+
+    assertEquals(4, listing.items.size());
+    RemoteItem deep = listing.items.get(2);
+    assertEquals("folder/sub/deep", deep.getFullName());
+    assertEquals("http://remote/job/folder/job/sub/job/deep/", deep.getUrl());
+    assertSame(listing.items.get(1), deep.getParent());
+    assertTrue(listing.truncated.isEmpty());
+  }
+
+  @Test
+  void reportsFoldersCutOffAtDepth() throws Exception {
+    FolderListing listing = parse(NESTED, 2);
+
+    assertEquals(3, listing.items.size());
+    assertEquals(1, listing.truncated.size());
+    assertEquals("folder/sub", listing.truncated.get(0).getFullName());
+  }
+
+  @Test
+  void parsesLargeListing() throws Exception {
+    FolderListing listing = new FolderListing(null);
+    JobListingParser.parse(new ByteArrayInputStream(SyntheticListing.xml(1000, 2)), null, 2, listing);
+
+    assertEquals(SyntheticListing.FOLDERS_PER_LEVEL + 1000, listing.items.size());
+  }
+
+  @Test
+  void ignoresJobElementsOutsideTheListing() throws Exception {
+    FolderListing listing = parse("<hudson>"
+        + "<job _class=\"hudson.model.FreeStyleProject\">"
+        + "<healthReport><job>not an item</job><name>not a name</name></healthReport>"
+        + "<name>job</name><url>http://remote/job/job/</url>"
+        + "</job>"
+        + "</hudson>", 3);
+
+    assertEquals(1, listing.items.size());
+    assertEquals("job", listing.items.get(0).getFullName());
+    assertEquals("http://remote/job/job/", listing.items.get(0).getUrl());
+  }
+
+  @Test
+  void readsJobsWithoutClassAsJobs() throws Exception {
+    FolderListing listing = parse("<hudson><job><name>job</name><url>http://remote/job/job/</url></job></hudson>", 2);
+
+    assertEquals(1, listing.items.size());
+    assertFalse(listing.items.get(0).isFolder());
+    assertEquals("", listing.items.get(0).getImpl());
+  }
+
+  @Test
+  void parsesEmptyListings() throws Exception {
+    FolderListing listing = parse("<hudson/>", 2);
+
+    assertTrue(listing.items.isEmpty());
+    assertTrue(listing.truncated.isEmpty());
+  }
+
+  @Test
+  void rejectsMalformedListings() {
+    assertThrows(XMLStreamException.class, () -> parse("<hudson><job><name>job</name></hudson>", 1));
+  }
+
+  private static FolderListing parse(String xml, int depth) throws Exception {
+    FolderListing listing = new FolderListing(null);
+    JobListingParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null, depth, listing);
+    return listing;
+  }
+}
@@ -0,0 +1,107 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemFilter;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.jenkins.ci.plugins.jobimport.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestApiClientTest {
+
+  private static final String NESTED =
+      "<hudson>"
+      + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\">"
+      + "<job _class=\"com.cloudbees.hudson.plugins.folder.Folder\">"
+      + "<job _class=\"hudson.model.FreeStyleProject\"><name>deep</name><url>http://remote/job/folder/job/sub/job/deep/</url></job>"
+      + "<name>sub</name><url>http://remote/job/folder/job/sub/</url>"
+      + "</job>"
+      + "<name>folder</name><url>http://remote/job/folder/</url>"
+      + "</job>"
+      + "<job _class=\"org.jenkinsci.plugins.workflow.job.WorkflowJob\"><name>job</name><url>http://remote/job/job/</url></job>"
+      + "</hudson>";
+
+  @Test
+  void keepsFoldersThatMayHoldAMatch() throws Exception {
+    FolderListing listing = filter(1, new RemoteItemFilter("folder/**", null, false, null, null));
+
+    assertEquals(List.of("folder"), names(listing));
+    assertEquals(1, listing.truncated.size());
+    assertSame(listing.items.get(0), listing.truncated.get(0));
+  }
+
+  @Test
+  void doesNotDescendIntoFoldersThatCannotMatch() throws Exception {
+    FolderListing listing = filter(1, new RemoteItemFilter("other/**", null, false, null, null));
+
+    assertTrue(listing.items.isEmpty());
+    assertTrue(listing.truncated.isEmpty());
+  }
+
+  @Test
+  void dropsTheContentOfExcludedFolders() throws Exception {
+    FolderListing listing = filter(3, new RemoteItemFilter(null, "folder", false, null, null));
+
+    assertEquals(List.of("job"), names(listing));
+  }
+
+  @Test
+  void matchesRegularExpressionsAndClasses() throws Exception {
+    assertEquals(List.of("folder", "folder/sub", "folder/sub/deep"),
+        names(filter(3, new RemoteItemFilter("folder/sub/d.*", null, true, null, null))));
+    assertEquals(List.of("folder", "folder/sub", "job"),
+        names(filter(3, new RemoteItemFilter(null, null, false, "WorkflowJob", null))));
+    assertEquals(List.of("folder", "folder/sub", "folder/sub/deep"),
+        names(filter(3, new RemoteItemFilter(null, null, false, null, "org.jenkinsci.plugins.workflow.job.WorkflowJob"))));
+  }
+
+  @Test
+  void indexesItemsByUrlAndFullName() throws Exception {
+    FolderListing listing = new FolderListing(null);
+    JobListingParser.parse(new ByteArrayInputStream(NESTED.getBytes(StandardCharsets.UTF_8)), null, 3, listing);
+    RemoteItemIndex index = new RemoteItemIndex(listing.items);
+
+    RemoteItem deep = index.getByFullName("folder/sub/deep");
+    assertEquals("http://remote/job/folder/job/sub/job/deep/", deep.getUrl());
+    assertSame(deep, index.getByUrl("http://remote/job/folder/job/sub/job/deep"));
+    assertSame(deep, index.getByUrl(" http://remote/job/folder/job/sub/job/deep/ "));
+    assertNull(index.getByUrl("http://remote/job/other/"));
+    assertNull(index.getByUrl(""));
+    assertEquals(4, index.size());
+    assertEquals(List.of("folder", "job"), index.getRoots().stream().map(RemoteItem::getFullName).collect(Collectors.toList()));
+
+    // the content of a folder opened later on is found as well
+    RemoteFolder folder = (RemoteFolder) index.getByFullName("folder");
+    index.addAll(List.of(new RemoteJob("late", "hudson.model.FreeStyleProject", "http://remote/job/folder/job/late/", null, folder)));
+    assertSame(index.getByFullName("folder/late"), index.getByUrl("http://remote/job/folder/job/late"));
+  }
+
+  @Test
+  void nestsOneJobsTreePerLevel() {
+    assertEquals(Constants.XML_API_QUERY, Constants.xmlApiQuery(1));
+    assertEquals("api/xml?tree=jobs[name,url,description,jobs[name,url,description,jobs[name,url,description]]]",
+        Constants.xmlApiQuery(3));
+  }
+
+  private static FolderListing filter(int depth, RemoteItemFilter filter) throws Exception {
+    FolderListing listing = new FolderListing(null);
+    JobListingParser.parse(new ByteArrayInputStream(NESTED.getBytes(StandardCharsets.UTF_8)), null, depth, listing);
+    listing.complete = true;
+    return RestApiClient.filter(listing, filter);
+  }
+
+  private static List<String> names(FolderListing listing) {
+    return listing.items.stream().map(RemoteItem::getFullName).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,184 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import org.jenkins.ci.plugins.jobimport.model.JenkinsSite;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SiteClientTest {
+
+  @RegisterExtension
+  private static final WireMockExtension wireMock = WireMockExtension.newInstance()
+      .options(wireMockConfig().dynamicPort()).build();
+
+  @AfterEach
+  void afterEach() {
+    SiteClient.retain(List.of());
+  }
+
+  @Test
+  void retriesWhileTheSiteIsBusy() throws Exception {
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml")).inScenario("busy")
+        .whenScenarioStateIs(Scenario.STARTED)
+        .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+        .willSetStateTo("unavailable"));
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml")).inScenario("busy")
+        .whenScenarioStateIs("unavailable")
+        .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "0"))
+        .willSetStateTo("ready"));
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml")).inScenario("busy")
+        .whenScenarioStateIs("ready")
+        .willReturn(aResponse().withStatus(200).withBody("<project/>")));
+
+    ConfigDownload download = client(3).download(wireMock.baseUrl() + "/job/job/config.xml",
+        CredentialsUtils.getCredentials(null, null), null);
+
+    assertEquals("<project/>", new String(download.getBody(), StandardCharsets.UTF_8));
+    wireMock.verify(exactly(3), getRequestedFor(urlEqualTo("/job/job/config.xml")));
+  }
+
+  @Test
+  void givesUpAfterTheRetryLimit() {
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml"))
+        .willReturn(aResponse().withStatus(503).withHeader("Retry-After", "0")));
+
+    assertThrows(IOException.class, () -> client(1).download(wireMock.baseUrl() + "/job/job/config.xml",
+        CredentialsUtils.getCredentials(null, null), null));
+    wireMock.verify(exactly(2), getRequestedFor(urlEqualTo("/job/job/config.xml")));
+  }
+
+  @Test
+  void sharesOneClientPerSite() {
+    SiteClient first = client(3);
+    JenkinsSite updated = new JenkinsSite("Renamed", wireMock.baseUrl());
+    updated.setMaxConcurrentRequests(12);
+
+    assertSame(first, SiteClient.of(updated));
+    assertEquals(12, first.getMaxConcurrentRequests());
+    assertSame(updated, first.getSite());
+
+    SiteClient.retain(List.of(updated));
+    assertSame(first, SiteClient.of(updated));
+    SiteClient.retain(List.of());
+    assertNotSame(first, SiteClient.of(updated));
+  }
+
+  @Test
+  @Timeout(30)
+  void releasesConnectionsToThePool() throws Exception {
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml"))
+        .willReturn(aResponse().withStatus(200).withBody("<project/>")));
+    SiteClient client = client(0);
+
+    for (int i = 0; i < SiteClient.MAX_CONNECTIONS_TOTAL + 1; i++) {
+      client.download(wireMock.baseUrl() + "/job/job/config.xml", CredentialsUtils.getCredentials(null, null), null);
+    }
+
+    // more requests than the pool holds connections, which would block if one was not released
+    wireMock.verify(exactly(SiteClient.MAX_CONNECTIONS_TOTAL + 1), getRequestedFor(urlEqualTo("/job/job/config.xml")));
+  }
+
+  @Test
+  void asksOnlyForChangedContent() throws Exception {
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml"))
+        .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"v1\"").withBody("<project/>")));
+    wireMock.stubFor(get(urlEqualTo("/job/job/config.xml")).withHeader("If-None-Match", equalTo("\"v1\""))
+        .willReturn(aResponse().withStatus(304)));
+    SiteClient client = client(0);
+
+    ConfigDownload first = client.download(wireMock.baseUrl() + "/job/job/config.xml",
+        CredentialsUtils.getCredentials(null, null), null);
+    ConfigDownload second = client.download(wireMock.baseUrl() + "/job/job/config.xml",
+        CredentialsUtils.getCredentials(null, null), first);
+
+    assertFalse(first.isNotModified());
+    assertEquals("\"v1\"", first.getEtag());
+    assertTrue(second.isNotModified());
+    assertEquals("\"v1\"", second.getEtag());
+  }
+
+  @Test
+  void retriesFailedConnections() throws Exception {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    JenkinsSite site = new JenkinsSite("Closed Site", "http://127.0.0.1:" + port);
+    site.setMaxRetries(1);
+
+    assertThrows(IOException.class, () -> SiteClient.of(site).download(site.getUrl() + "/job/job/config.xml",
+        CredentialsUtils.getCredentials(null, null), null));
+  }
+
+  @Test
+  void backsOffExponentiallyUpToTheCap() {
+    for (int attempt = 0; attempt < 40; attempt++) {
+      long ceiling = Math.min(SiteClient.RETRY_MAX_MILLIS, SiteClient.RETRY_BASE_MILLIS << Math.min(attempt, 30));
+      long delay = SiteClient.backoffMillis(attempt);
+      assertTrue(delay >= 0 && delay <= ceiling, attempt + ": " + delay);
+    }
+  }
+
+  @Test
+  void prefetchesInOrderWithinTheWindow() throws Exception {
+    List<RemoteJob> items = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      wireMock.stubFor(get(urlEqualTo("/job/job-" + i + "/config.xml"))
+          .willReturn(aResponse().withStatus(i == 1 ? 404 : 200).withBody("<project>" + i + "</project>")));
+      items.add(new RemoteJob("job-" + i, "hudson.model.FreeStyleProject", wireMock.baseUrl() + "/job/job-" + i, null, null));
+    }
+    JenkinsSite site = new JenkinsSite("Test Site", wireMock.baseUrl());
+    site.setMaxConcurrentRequests(1);
+
+    try (ConfigPrefetcher prefetcher = new ConfigPrefetcher(SiteClient.of(site), CredentialsUtils.getCredentials(null, null), items)) {
+      assertEquals(ConfigPrefetcher.WINDOW_PER_REQUEST, prefetcher.getWindowSize());
+      assertEquals("<project>0</project>", body(prefetcher.next()));
+      // give the downloads ahead time to run, they must not go past the window
+      Thread.sleep(500);
+      assertTrue(wireMock.getAllServeEvents().size() <= prefetcher.getWindowSize());
+
+      assertThrows(IOException.class, prefetcher::next);
+      prefetcher.skip();
+      for (int i = 3; i < items.size(); i++) {
+        assertEquals("<project>" + i + "</project>", body(prefetcher.next()));
+      }
+      assertThrows(NoSuchElementException.class, prefetcher::next);
+    }
+  }
+
+  private static String body(ConfigDownload download) {
+    return new String(download.getBody(), StandardCharsets.UTF_8);
+  }
+
+  private static SiteClient client(int maxRetries) {
+    JenkinsSite site = new JenkinsSite("Test Site", wireMock.baseUrl());
+    site.setMaxRetries(maxRetries);
+    return SiteClient.of(site);
+  }
+}
@@ -0,0 +1,115 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jenkins.ci.plugins.jobimport.model.RemoteFolder;
+import org.jenkins.ci.plugins.jobimport.model.RemoteJob;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SiteIndexTest {
+
+  private static final String ROOT = "http://remote/";
+
+  @TempDir
+  File dir;
+
+  @Test
+  void answersFreshFoldersOnly() {
+    SiteIndex index = SiteIndex.load(new File(dir, "site.idx"));
+    index.record(ROOT, listing("job"), System.currentTimeMillis());
+    index.record("http://remote/job/old/", listing("job"),
+        System.currentTimeMillis() - SiteIndex.STALE_AFTER_MILLIS - 1);
+
+    FolderListing fresh = index.listing(null, ROOT, 1);
+    assertNotNull(fresh);
+    assertTrue(fresh.complete);
+    assertEquals("job", fresh.items.get(0).getName());
+    assertNull(index.listing(null, "http://remote/job/old/", 1));
+    assertNull(index.listing(null, "http://remote/job/unknown/", 1));
+  }
+
+  @Test
+  void reportsStaleSubFoldersAsTruncated() {
+    SiteIndex index = SiteIndex.load(new File(dir, "site.idx"));
+    FolderListing listing = new FolderListing(null);
+    RemoteFolder folder = new RemoteFolder("folder", JobListingParser.FOLDER_CLASS, "http://remote/job/folder/", null, null);
+    listing.items.add(folder);
+    listing.truncated.add(folder);
+    index.record(ROOT, listing, System.currentTimeMillis());
+
+    FolderListing indexed = index.listing(null, ROOT, 2);
+    assertNotNull(indexed);
+    assertEquals(1, indexed.truncated.size());
+    assertEquals("http://remote/job/folder/", indexed.truncated.get(0).getUrl());
+  }
+
+  @Test
+  void roundTripsStringsOverSixtyFourKilobytes() {
+    File file = new File(dir, "site.idx");
+    // descriptions are cut short, so the length limit of writeUTF is hit by long names and URLs
+    String url = ROOT + "job/" + StringUtils.repeat("\u00e9", 70_000) + "/";
+    FolderListing listing = new FolderListing(null);
+    RemoteJob job = new RemoteJob("job", "hudson.model.FreeStyleProject", url, "a & b", null);
+    listing.items.add(job);
+    SiteIndex index = SiteIndex.load(file);
+    index.record(ROOT, listing, System.currentTimeMillis());
+    index.flush();
+
+    FolderListing loaded = SiteIndex.load(file).listing(null, ROOT, 1);
+    assertNotNull(loaded);
+    assertEquals(1, loaded.items.size());
+    assertEquals(url, loaded.items.get(0).getUrl());
+    assertEquals(job.getDescription(), loaded.items.get(0).getDescription());
+  }
+
+  @Test
+  void writesOnlyWhenSomethingChanged() {
+    File file = new File(dir, "site.idx");
+    SiteIndex index = SiteIndex.load(file);
+    index.record(ROOT, listing("job"), System.currentTimeMillis());
+    index.flush();
+    assertTrue(file.delete());
+
+    index.record(ROOT, listing("job"), System.currentTimeMillis());
+    index.flush();
+    assertFalse(file.exists());
+
+    index.record(ROOT, listing("other"), System.currentTimeMillis());
+    index.flush();
+    assertTrue(file.exists());
+  }
+
+  @Test
+  void rebuildsIndexesOfAnotherFormat() throws Exception {
+    File file = new File(dir, "site.idx");
+    try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(1);
+      out.writeInt(1);
+      out.writeUTF(ROOT);
+    }
+
+    SiteIndex index = SiteIndex.load(file);
+    assertNull(index.listing(null, ROOT, 1));
+    index.record(ROOT, listing("job"), System.currentTimeMillis());
+    index.flush();
+    assertNotNull(SiteIndex.load(file).listing(null, ROOT, 1));
+  }
+
+  private static FolderListing listing(String name) {
+    FolderListing listing = new FolderListing(null);
+    listing.items.add(new RemoteJob(name, "hudson.model.FreeStyleProject", ROOT + "job/" + name + "/", null, null));
+    listing.complete = true;
+    return listing;
+  }
+}
@@ -0,0 +1,52 @@
+package org.jenkins.ci.plugins.jobimport.client;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds large {@code api/xml?tree=jobs[...]} responses, laid out the way a remote Jenkins writes them.
+ */
+final class SyntheticListing {
+
+  static final String BASE_URL = "http://remote.example.com/";
+  static final int FOLDERS_PER_LEVEL = 10;
+
+  private SyntheticListing() {
+  }
+
+  /**
+   * @param jobs Number of jobs in the listing
+   * @param depth Number of nested levels; with more than one level the jobs are spread over the deepest folders
+   */
+  static byte[] xml(int jobs, int depth) {
+    StringBuilder sb = new StringBuilder(jobs * 160);
+    sb.append("<hudson _class=\"hudson.model.Hudson\">");
+    int leaves = (int) Math.pow(FOLDERS_PER_LEVEL, depth - 1);
+    appendLevel(sb, BASE_URL, 1, depth, Math.max(1, jobs / leaves));
+    sb.append("</hudson>");
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void appendLevel(StringBuilder sb, String url, int level, int depth, int jobsPerLeaf) {
+    if (level < depth) {
+      for (int i = 0; i < FOLDERS_PER_LEVEL; i++) {
+        String name = "folder-" + level + "-" + i;
+        String folderUrl = url + "job/" + name + "/";
+        sb.append("<job _class=\"").append(JobListingParser.FOLDER_CLASS).append("\">");
+        sb.append("<description>Folder ").append(name).append("</description>");
+        appendLevel(sb, folderUrl, level + 1, depth, jobsPerLeaf);
+        sb.append("<name>").append(name).append("</name>");
+        sb.append("<url>").append(folderUrl).append("</url>");
+        sb.append("</job>");
+      }
+    } else {
+      for (int i = 0; i < jobsPerLeaf; i++) {
+        String name = "job-" + i;
+        sb.append("<job _class=\"hudson.model.FreeStyleProject\">");
+        sb.append("<description>Job ").append(name).append(" &amp; friends</description>");
+        sb.append("<name>").append(name).append("</name>");
+        sb.append("<url>").append(url).append("job/").append(name).append("/</url>");
+        sb.append("</job>");
+      }
+    }
+  }
+}
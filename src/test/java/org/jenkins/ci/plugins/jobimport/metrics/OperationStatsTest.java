@@ -0,0 +1,38 @@
+package org.jenkins.ci.plugins.jobimport.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OperationStatsTest {
+
+  @Test
+  void countsAndBucketsLatencies() {
+    OperationStats stats = new OperationStats();
+    for (int i = 0; i < 90; i++) {
+      stats.record(TimeUnit.MILLISECONDS.toNanos(3), 100, false);
+    }
+    for (int i = 0; i < 10; i++) {
+      stats.record(TimeUnit.MILLISECONDS.toNanos(700), 0, true);
+    }
+
+    assertEquals(100, stats.getCount());
+    assertEquals(10, stats.getErrors());
+    assertEquals(9000, stats.getBytes());
+    assertEquals(72.7, stats.getMeanMillis(), 0.001);
+    assertEquals(5, stats.getPercentileMillis(0.5));
+    assertEquals(5, stats.getPercentileMillis(0.9));
+    assertEquals(700, stats.getPercentileMillis(0.95));
+    assertEquals(700, stats.getMaxMillis());
+  }
+
+  @Test
+  void reportsNothingBeforeTheFirstSample() {
+    OperationStats stats = new OperationStats();
+
+    assertEquals(0, stats.getMeanMillis());
+    assertEquals(0, stats.getPercentileMillis(0.99));
+  }
+}
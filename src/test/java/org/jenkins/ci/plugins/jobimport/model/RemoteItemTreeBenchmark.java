@@ -0,0 +1,75 @@
+package org.jenkins.ci.plugins.jobimport.model;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Builds, sorts and hashes a large synthetic remote tree. {@link #sortRebuildingFullNames} sorts with full names
+ * rebuilt on every comparison, the way {@link RemoteItem} used to, as a baseline for {@link #sort}.
+ */
+@JmhBenchmark
+public class RemoteItemTreeBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Tree {
+    @Param({"50000"})
+    public int items;
+
+    @Param({"3"})
+    public int depth;
+
+    List<RemoteItem> shuffled;
+
+    @Setup
+    public void setup() {
+      shuffled = SyntheticTree.build(items, depth);
+      Collections.shuffle(shuffled, new Random(42));
+    }
+  }
+
+  @Benchmark
+  public List<RemoteItem> build(Tree tree) {
+    return SyntheticTree.build(tree.items, tree.depth);
+  }
+
+  @Benchmark
+  public SortedSet<RemoteItem> sort(Tree tree) {
+    return new TreeSet<>(tree.shuffled);
+  }
+
+  @Benchmark
+  public SortedSet<RemoteItem> sortRebuildingFullNames(Tree tree) {
+    final SortedSet<RemoteItem> sorted = new TreeSet<>(Comparator.comparing(RemoteItemTreeBenchmark::rebuildFullName));
+    sorted.addAll(tree.shuffled);
+    return sorted;
+  }
+
+  @Benchmark
+  public Set<RemoteItem> hash(Tree tree) {
+    return new HashSet<>(tree.shuffled);
+  }
+
+  private static String rebuildFullName(RemoteItem item) {
+    StringBuilder sb = new StringBuilder();
+    sb.insert(0, item.getName());
+    RemoteFolder parent = item.getParent();
+    while (parent != null) {
+      sb.insert(0, "/").insert(0, parent.getName());
+      parent = parent.getParent();
+    }
+    return sb.toString();
+  }
+}
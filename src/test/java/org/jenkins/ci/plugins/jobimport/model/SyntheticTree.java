@@ -0,0 +1,54 @@
+package org.jenkins.ci.plugins.jobimport.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds large remote trees without going through a listing.
+ */
+public final class SyntheticTree {
+
+  public static final String BASE_URL = "http://remote.example/";
+  public static final int FOLDERS_PER_LEVEL = 10;
+
+  private SyntheticTree() {
+  }
+
+  /**
+   * @return {@code items} items spread over {@code depth} levels of folders, each folder holding
+   * {@value #FOLDERS_PER_LEVEL} sub folders and its share of jobs. Folders come before their content.
+   */
+  public static List<RemoteItem> build(int items, int depth) {
+    final List<RemoteItem> result = new ArrayList<>(items);
+    List<RemoteFolder> level = new ArrayList<>();
+    level.add(null);
+    for (int d = 1; d < depth; d++) {
+      final List<RemoteFolder> next = new ArrayList<>();
+      for (RemoteFolder parent : level) {
+        for (int i = 0; i < FOLDERS_PER_LEVEL && result.size() < items; i++) {
+          RemoteFolder folder = new RemoteFolder("folder-" + i, "com.cloudbees.hudson.plugins.folder.Folder",
+                  url(parent, "folder-" + i), "", parent);
+          if (parent != null) {
+            parent.addChild(folder);
+          }
+          result.add(folder);
+          next.add(folder);
+        }
+      }
+      level = next;
+    }
+    for (int i = 0; result.size() < items; i++) {
+      RemoteFolder parent = level.get(i % level.size());
+      RemoteJob job = new RemoteJob("job-" + i, "hudson.model.FreeStyleProject", url(parent, "job-" + i), "", parent);
+      if (parent != null) {
+        parent.addChild(job);
+      }
+      result.add(job);
+    }
+    return result;
+  }
+
+  private static String url(RemoteFolder parent, String name) {
+    return (parent == null ? BASE_URL : parent.getUrl()) + "job/" + name + "/";
+  }
+}
@@ -0,0 +1,60 @@
+package org.jenkins.ci.plugins.jobimport.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.jenkins.ci.plugins.jobimport.model.RewriteRule;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigRewriterTest {
+
+  private static final String CONFIG = "<?xml version='1.1' encoding='UTF-8'?>\n"
+      + "<project>\n"
+      + "  <scm class=\"hudson.plugins.git.GitSCM\" plugin=\"git@5.2.0\">\n"
+      + "    <userRemoteConfigs>\n"
+      + "      <hudson.plugins.git.UserRemoteConfig>\n"
+      + "        <url>https://git.old.example.com/team/app.git</url>\n"
+      + "        <credentialsId>old-git</credentialsId>\n"
+      + "      </hudson.plugins.git.UserRemoteConfig>\n"
+      + "    </userRemoteConfigs>\n"
+      + "  </scm>\n"
+      + "  <assignedNode>linux &amp;&amp; old</assignedNode>\n"
+      + "  <description>built on git.old.example.com</description>\n"
+      + "</project>";
+
+  @Test
+  void rewritesSelectedTextAndAttributes() throws Exception {
+    ConfigRewriter rewriter = ConfigRewriter.of(List.of(
+        new RewriteRule("hudson.plugins.git.UserRemoteConfig/url", "git\\.old\\.example\\.com", "git.example.com"),
+        new RewriteRule("credentialsId", "^old-git$", "git"),
+        new RewriteRule("/project/assignedNode", "\\bold\\b", "new"),
+        new RewriteRule("scm/@plugin", "@.*", "")));
+
+    String rewritten = new String(rewriter.rewrite(CONFIG.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+    assertTrue(rewritten.contains("<url>https://git.example.com/team/app.git</url>"), rewritten);
+    assertTrue(rewritten.contains("<credentialsId>git</credentialsId>"), rewritten);
+    assertTrue(rewritten.contains("<assignedNode>linux &amp;&amp; new</assignedNode>"), rewritten);
+    assertTrue(rewritten.contains("plugin=\"git\""), rewritten);
+    // not selected
+    assertTrue(rewritten.contains("<description>built on git.old.example.com</description>"), rewritten);
+  }
+
+  @Test
+  void keepsConfigurationsNoRuleChanges() throws Exception {
+    byte[] config = CONFIG.getBytes(StandardCharsets.UTF_8);
+    ConfigRewriter rewriter = ConfigRewriter.of(List.of(new RewriteRule("*/label", "old", "new")));
+
+    assertSame(config, rewriter.rewrite(config));
+  }
+
+  @Test
+  void rejectsInvalidRules() {
+    assertThrows(IllegalArgumentException.class, () -> ConfigRewriter.of(List.of(new RewriteRule("a//b", "x", ""))));
+    assertThrows(IllegalArgumentException.class, () -> ConfigRewriter.of(List.of(new RewriteRule("a/@b/c", "x", ""))));
+    assertThrows(IllegalArgumentException.class, () -> ConfigRewriter.of(List.of(new RewriteRule("url", "(", ""))));
+  }
+}
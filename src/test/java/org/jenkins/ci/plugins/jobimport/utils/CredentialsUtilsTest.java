@@ -0,0 +1,96 @@
+package org.jenkins.ci.plugins.jobimport.utils;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.domains.Domain;
+import com.cloudbees.plugins.credentials.domains.HostnameSpecification;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import org.jenkins.ci.plugins.jobimport.utils.CredentialsUtils.NullSafeCredentials;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class CredentialsUtilsTest {
+
+  private static final String SITE = "https://remote.example.com/";
+
+  @Test
+  void resolvesOnceUntilTheCredentialsChange(JenkinsRule rule) throws Exception {
+    SystemCredentialsProvider provider = SystemCredentialsProvider.getInstance();
+    provider.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "remote", null,
+        "alice", "first-secret"));
+    provider.save();
+
+    NullSafeCredentials first = CredentialsUtils.getCredentials(SITE, "remote");
+    assertEquals("alice", first.username);
+    assertSame(first, CredentialsUtils.getCredentials(SITE, "remote"));
+
+    provider.getCredentials().clear();
+    provider.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "remote", null,
+        "alice", "second-secret"));
+    provider.save();
+
+    assertEquals("second-secret", CredentialsUtils.getCredentials(SITE, "remote").password);
+  }
+
+  @Test
+  void ignoresCredentialsRestrictedToOtherDomains(JenkinsRule rule) throws Exception {
+    SystemCredentialsProvider.getInstance().getStore().addDomain(
+        new Domain("remote", null, List.of(new HostnameSpecification("remote.example.com", null))),
+        new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "remote", null, "alice", "secret"));
+    SystemCredentialsProvider.getInstance().getStore().addDomain(
+        new Domain("elsewhere", null, List.of(new HostnameSpecification("elsewhere.example.com", null))),
+        new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "elsewhere", null, "bob", "secret"));
+
+    List<LogRecord> warnings = new ArrayList<>();
+    Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord record) {
+        warnings.add(record);
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    Logger logger = Logger.getLogger(CredentialsUtils.class.getName());
+    logger.addHandler(handler);
+    try {
+      assertEquals("alice", CredentialsUtils.getCredentials(SITE, "remote").username);
+      assertTrue(warnings.isEmpty());
+      assertEquals("", CredentialsUtils.getCredentials(SITE, "elsewhere").username);
+      assertEquals(1, warnings.size());
+      assertTrue(warnings.get(0).getMessage().contains("elsewhere"));
+    } finally {
+      logger.removeHandler(handler);
+    }
+  }
+
+  @Test
+  void keepsABoundedNumberOfSites(JenkinsRule rule) throws Exception {
+    SystemCredentialsProvider provider = SystemCredentialsProvider.getInstance();
+    provider.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "remote", null,
+        "alice", "secret"));
+    provider.save();
+
+    for (int i = 0; i < CredentialsUtils.CACHE_SIZE + 10; i++) {
+      assertEquals("alice", CredentialsUtils.getCredentials("https://remote-" + i + ".example.com/", "remote").username);
+    }
+    assertTrue(CredentialsUtils.cacheSize() <= CredentialsUtils.CACHE_SIZE);
+  }
+}
@@ -0,0 +1,75 @@
+package org.jenkins.ci.plugins.jobimport.utils;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItem;
+import org.jenkins.ci.plugins.jobimport.model.RemoteItemIndex;
+import org.jenkins.ci.plugins.jobimport.model.SyntheticTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Resolves the URLs of the jobs selected for an import, through {@link RemoteItemUtils} and with the linear scan it
+ * used to do.
+ */
+@JmhBenchmark
+public class RemoteItemLookupBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Selection {
+    @Param({"20000"})
+    public int items;
+
+    @Param({"5000"})
+    public int selected;
+
+    SortedSet<RemoteItem> remoteJobs;
+    List<String> jobUrls;
+
+    @Setup
+    public void setup() {
+      final List<RemoteItem> tree = SyntheticTree.build(items, 3);
+      remoteJobs = new TreeSet<>(tree);
+
+      final List<RemoteItem> shuffled = new ArrayList<>(tree);
+      Collections.shuffle(shuffled, new Random(42));
+      jobUrls = new ArrayList<>(selected);
+      for (RemoteItem item : shuffled.subList(0, selected)) {
+        jobUrls.add(item.getUrl());
+      }
+    }
+  }
+
+  @Benchmark
+  public List<RemoteItem> index(Selection selection) {
+    final RemoteItemIndex index = new RemoteItemIndex(new ArrayList<>(selection.remoteJobs));
+    final List<RemoteItem> found = new ArrayList<>(selection.jobUrls.size());
+    for (String jobUrl : selection.jobUrls) {
+      found.add(RemoteItemUtils.getRemoteJob(index, jobUrl));
+    }
+    return found;
+  }
+
+  @Benchmark
+  public List<RemoteItem> scan(Selection selection) {
+    final List<RemoteItem> found = new ArrayList<>(selection.jobUrls.size());
+    for (String jobUrl : selection.jobUrls) {
+      for (RemoteItem item : selection.remoteJobs) {
+        if (jobUrl.trim().equals(item.getUrl().trim())) {
+          found.add(item);
+          break;
+        }
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,33 @@
+package org.jenkins.ci.plugins.jobimport.utils;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Joins remote URLs the way every listing and {@code config.xml} request does.
+ */
+@JmhBenchmark
+public class URLUtilsBenchmark {
+
+  private static final String[] BASES = {
+      "http://remote.example/",
+      "http://remote.example",
+      "http://remote.example/job/folder-1/job/folder-2/",
+  };
+
+  private static final String[] SUFFIXES = {
+      "/job/folder-1/",
+      "job/folder-1/",
+      Constants.xmlApiQuery(3),
+  };
+
+  @Benchmark
+  public void safeURL(Blackhole blackhole) {
+    for (String base : BASES) {
+      for (String suffix : SUFFIXES) {
+        blackhole.consume(URLUtils.safeURL(base, suffix));
+      }
+    }
+  }
+}